@@ -0,0 +1,161 @@
+package com.project.fileconverter.benchmark;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+
+import com.spire.doc.Document;
+import com.spire.doc.FileFormat;
+import com.spire.doc.Section;
+
+/**
+ * Generates benchmark inputs of a given size class, so benchmarks do not depend on
+ * checked-in sample documents.
+ */
+final class BenchmarkFixtures {
+
+    private static final String SENTENCE = "The quick brown fox jumps over the lazy dog while the invoice totals are recalculated. ";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Create a fixture of {@code format} ("docx", "doc", "xlsx", "pptx", "html", "text" or "image")
+     * in {@code dir}, scaled by {@code size} ("small", "medium" or "large").
+     */
+    static Path create(String format, String size, Path dir) throws Exception {
+        switch (format) {
+            case "docx": return docx(dir.resolve("fixture.docx"), scale(size, 10, 200, 2_000));
+            case "doc": return doc(dir.resolve("fixture.doc"), scale(size, 10, 200, 2_000));
+            case "xlsx": return xlsx(dir.resolve("fixture.xlsx"), scale(size, 100, 10_000, 100_000));
+            case "pptx": return pptx(dir.resolve("fixture.pptx"), scale(size, 2, 20, 100));
+            case "html": return html(dir.resolve("fixture.html"), scale(size, 20, 500, 5_000));
+            case "text": return text(dir.resolve("fixture.log"), scale(size, 100, 50_000, 1_000_000));
+            case "image": return image(dir.resolve("fixture.png"), scale(size, 640, 2_000, 4_000));
+            default: throw new IllegalArgumentException("Unknown fixture format " + format);
+        }
+    }
+
+    static int scale(String size, int small, int medium, int large) {
+        switch (size) {
+            case "small": return small;
+            case "medium": return medium;
+            case "large": return large;
+            default: throw new IllegalArgumentException("Unknown fixture size " + size);
+        }
+    }
+
+    static Path docx(Path path, int paragraphs) throws Exception {
+        WordprocessingMLPackage wordMLPackage = WordprocessingMLPackage.createPackage();
+        for (int i = 0; i < paragraphs; i++) {
+            wordMLPackage.getMainDocumentPart().addParagraphOfText(i + ". " + SENTENCE);
+        }
+        wordMLPackage.save(path.toFile());
+        return path;
+    }
+
+    static Path doc(Path path, int paragraphs) {
+        Document document = new Document();
+        try {
+            Section section = document.addSection();
+            for (int i = 0; i < paragraphs; i++) {
+                section.addParagraph().appendText(i + ". " + SENTENCE);
+            }
+            document.saveToFile(path.toString(), FileFormat.Doc);
+        } finally {
+            document.close();
+        }
+        return path;
+    }
+
+    static Path xlsx(Path path, int rows) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+        try (OutputStream out = Files.newOutputStream(path)) {
+            Sheet sheet = workbook.createSheet("Data");
+            Row header = sheet.createRow(0);
+            String[] columns = {"Id", "Item", "Quantity", "Price", "Total"};
+            for (int c = 0; c < columns.length; c++) {
+                header.createCell(c).setCellValue(columns[c]);
+            }
+            for (int r = 1; r <= rows; r++) {
+                Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue(r);
+                row.createCell(1).setCellValue("Item " + r);
+                row.createCell(2).setCellValue(r % 17);
+                row.createCell(3).setCellValue(9.99 + r % 100);
+                row.createCell(4).setCellFormula("C" + (r + 1) + "*D" + (r + 1));
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+        return path;
+    }
+
+    static Path pptx(Path path, int slides) throws IOException {
+        try (XMLSlideShow ppt = new XMLSlideShow(); OutputStream out = Files.newOutputStream(path)) {
+            for (int i = 1; i <= slides; i++) {
+                XSLFSlide slide = ppt.createSlide();
+                XSLFTextBox title = slide.createTextBox();
+                title.setAnchor(new Rectangle(50, 40, 620, 60));
+                title.setText("Slide " + i);
+                XSLFTextBox body = slide.createTextBox();
+                body.setAnchor(new Rectangle(50, 120, 620, 360));
+                body.setText(SENTENCE.repeat(4));
+            }
+            ppt.write(out);
+        }
+        return path;
+    }
+
+    static Path html(Path path, int rows) throws IOException {
+        try (Writer w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            w.write("<html><head><style>td{border:1px solid #ccc;padding:2px}</style></head><body>");
+            w.write("<h1>Invoice</h1><table>");
+            for (int i = 1; i <= rows; i++) {
+                w.write("<tr><td>" + i + "</td><td>Item " + i + "</td><td>" + (i % 17) + "</td></tr>");
+            }
+            w.write("</table></body></html>");
+        }
+        return path;
+    }
+
+    static Path text(Path path, int lines) throws IOException {
+        try (Writer w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (int i = 1; i <= lines; i++) {
+                w.write("2026-01-01T00:00:00Z INFO [worker-" + (i % 8) + "] request " + i + " " + SENTENCE + "\n");
+            }
+        }
+        return path;
+    }
+
+    static Path image(Path path, int width) throws IOException {
+        int height = width * 3 / 4;
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.BLUE, width, height, Color.ORANGE));
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        ImageIO.write(img, "png", path.toFile());
+        return path;
+    }
+}
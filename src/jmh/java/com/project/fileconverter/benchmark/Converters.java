@@ -0,0 +1,81 @@
+package com.project.fileconverter.benchmark;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.util.unit.DataSize;
+
+import com.project.fileconverter.converter.DocxPdfConverter;
+import com.project.fileconverter.converter.DocxRenderEngine;
+import com.project.fileconverter.converter.HtmlPdfConverter;
+import com.project.fileconverter.converter.ImagePdfConverter;
+import com.project.fileconverter.converter.PdfConverter;
+import com.project.fileconverter.converter.PdfOutputFactory;
+import com.project.fileconverter.converter.PptxPdfConverter;
+import com.project.fileconverter.converter.RenderPool;
+import com.project.fileconverter.converter.TextPdfConverter;
+import com.project.fileconverter.converter.XlsxPdfConverter;
+import com.project.fileconverter.model.SlideRenderMode;
+
+/**
+ * Builds converters with the same defaults as application.properties, without starting Spring.
+ */
+final class Converters {
+
+    /** Shared by every converter built here, as the application shares one. */
+    private static final PdfOutputFactory OUTPUTS =
+            new PdfOutputFactory(DataSize.ofMegabytes(16), DataSize.ofMegabytes(256), Duration.ofSeconds(5));
+
+    private Converters() {
+    }
+
+    static List<PdfConverter> all(RenderPool renderPool) {
+        return List.of(
+                docx(),
+                xlsx(),
+                pptx(renderPool, SlideRenderMode.RASTER),
+                html(),
+                text(renderPool),
+                image());
+    }
+
+    static PdfConverter forFormat(String format, RenderPool renderPool) {
+        switch (format) {
+            case "docx": return docx();
+            case "xlsx": return xlsx();
+            case "pptx": return pptx(renderPool, SlideRenderMode.RASTER);
+            case "html": return html();
+            case "text": return text(renderPool);
+            case "image": return image();
+            default: throw new IllegalArgumentException("Unknown format " + format);
+        }
+    }
+
+    static PdfConverter docx() {
+        return docx(DocxPdfConverter.LegacyEngine.SPIRE);
+    }
+
+    static PdfConverter docx(DocxPdfConverter.LegacyEngine legacyEngine) {
+        return new DocxPdfConverter(new DocxRenderEngine(1, false), OUTPUTS, legacyEngine);
+    }
+
+    static PdfConverter xlsx() {
+        return new XlsxPdfConverter(50);
+    }
+
+    static PdfConverter pptx(RenderPool renderPool, SlideRenderMode mode) {
+        return new PptxPdfConverter(renderPool, 0, 4, mode, List.of("/usr/share/fonts", "C:/Windows/Fonts"));
+    }
+
+    static PdfConverter html() {
+        return new HtmlPdfConverter(OUTPUTS, DataSize.ofMegabytes(64), DataSize.ofMegabytes(8), Duration.ofMinutes(10), List.of());
+    }
+
+    static PdfConverter text(RenderPool renderPool) {
+        return new TextPdfConverter(renderPool, OUTPUTS, DataSize.ofMegabytes(16), DataSize.ofMegabytes(64), 0);
+    }
+
+    static PdfConverter image() {
+        return new ImagePdfConverter(OUTPUTS, 150, "LETTER", 0.85f, DataSize.ofMegabytes(16));
+    }
+}
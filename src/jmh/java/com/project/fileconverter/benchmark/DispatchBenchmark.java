@@ -0,0 +1,104 @@
+package com.project.fileconverter.benchmark;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.file.PathUtils;
+import org.apache.tika.Tika;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import com.project.fileconverter.converter.ConverterRegistry;
+import com.project.fileconverter.converter.PdfConverter;
+import com.project.fileconverter.converter.RenderPool;
+import com.project.fileconverter.model.StoredFile;
+import com.project.fileconverter.service.ConversionCache;
+import com.project.fileconverter.service.ConversionMetrics;
+import com.project.fileconverter.service.StorageIndex;
+import com.project.fileconverter.service.ConverterService;
+import com.project.fileconverter.service.CostEstimator;
+import com.project.fileconverter.worker.WorkerProcessPool;
+
+/**
+ * Measures the per-upload overhead before any conversion starts: Tika MIME detection on
+ * the stored file and picking a converter for the detected type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchBenchmark {
+
+    @Param({"docx", "xlsx", "pptx", "html", "text", "image"})
+    public String format;
+
+    private Path workDir;
+    private File source;
+    private StoredFile stored;
+    private RenderPool renderPool;
+    private ConverterService service;
+    private StorageIndex index;
+    private final Tika tika = new Tika();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("bench-dispatch-" + format);
+        Path fixture = BenchmarkFixtures.create(format, "small", workDir);
+        source = fixture.toFile();
+        renderPool = new RenderPool(1);
+        List<PdfConverter> converters = new ArrayList<>(Converters.all(renderPool));
+        Path storage = workDir.resolve("storage");
+        index = new StorageIndex(storage.toString(), 1);
+        ConversionCache cache = new ConversionCache(storage.toString());
+        service = new ConverterService(new ConverterRegistry(converters), cache,
+                new ConversionMetrics(new SimpleMeterRegistry(), ObservationRegistry.NOOP, index, cache), index,
+                new WorkerProcessPool(false, 0, "512m", List.of(), 1, Duration.ofMinutes(1), Duration.ofMinutes(1)),
+                new CostEstimator(0.2), "", DataSize.ofBytes(0));
+        stored = new StoredFile("bench", source.getName(), tika.detect(source), fixture, storage.resolve("bench.pdf"), "0");
+    }
+
+    @Benchmark
+    public String detect() throws Exception {
+        return tika.detect(source);
+    }
+
+    @Benchmark
+    public PdfConverter dispatch() throws Exception {
+        return service.resolveConverter(stored);
+    }
+
+    @Benchmark
+    public PdfConverter detectAndDispatch() throws Exception {
+        StoredFile detected = new StoredFile(stored.getId(), stored.getOriginalFilename(), tika.detect(source),
+                stored.getOriginalPath(), stored.getPdfPath(), stored.getHash());
+        return service.resolveConverter(detected);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        renderPool.shutdown();
+        index.close();
+        PathUtils.deleteDirectory(workDir);
+    }
+}
@@ -0,0 +1,75 @@
+package com.project.fileconverter.benchmark;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.file.PathUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.fileconverter.converter.DocxPdfConverter;
+import com.project.fileconverter.converter.PdfConverter;
+
+/**
+ * Compares the legacy .doc engines: Spire to DOCX then docx4j, against POI's HWPF to
+ * HTML then openhtmltopdf. Reports time per document and, as {@code outputBytes}, the
+ * size of the PDF; run with {@code -prof gc} to compare allocation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LegacyDocBenchmark {
+
+    @Param({"SPIRE", "HWPF"})
+    public DocxPdfConverter.LegacyEngine engine;
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private Path workDir;
+    private File source;
+    private File dest;
+    private PdfConverter converter;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class OutputSize {
+        public long outputBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("bench-doc-" + engine);
+        source = BenchmarkFixtures.create("doc", size, workDir).toFile();
+        dest = workDir.resolve("out.pdf").toFile();
+        converter = Converters.docx(engine);
+    }
+
+    @Benchmark
+    public void convert(OutputSize output) throws Exception {
+        converter.convert(source, dest);
+        output.outputBytes = dest.length();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        PathUtils.deleteDirectory(workDir);
+    }
+}
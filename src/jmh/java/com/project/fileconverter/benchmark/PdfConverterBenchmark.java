@@ -0,0 +1,70 @@
+package com.project.fileconverter.benchmark;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.file.PathUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.fileconverter.converter.PdfConverter;
+import com.project.fileconverter.converter.RenderPool;
+
+/**
+ * Converts a generated fixture with each {@link PdfConverter}. Run with {@code -prof gc}
+ * (the profile default) to get allocation rates alongside throughput and average time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PdfConverterBenchmark {
+
+    @Param({"docx", "xlsx", "pptx", "html", "text", "image"})
+    public String format;
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private Path workDir;
+    private File source;
+    private File dest;
+    private RenderPool renderPool;
+    private PdfConverter converter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("bench-" + format + "-" + size);
+        source = BenchmarkFixtures.create(format, size, workDir).toFile();
+        dest = workDir.resolve("out.pdf").toFile();
+        renderPool = new RenderPool(0);
+        converter = Converters.forFormat(format, renderPool);
+    }
+
+    @Benchmark
+    public long convert() throws Exception {
+        converter.convert(source, dest);
+        return dest.length();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        renderPool.shutdown();
+        PathUtils.deleteDirectory(workDir);
+    }
+}
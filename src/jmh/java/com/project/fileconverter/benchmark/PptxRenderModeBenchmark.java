@@ -0,0 +1,78 @@
+package com.project.fileconverter.benchmark;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.file.PathUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.fileconverter.converter.PdfConverter;
+import com.project.fileconverter.converter.RenderPool;
+import com.project.fileconverter.model.SlideRenderMode;
+
+/**
+ * Compares raster and vector slide output: render time per deck, plus the size of the
+ * produced PDF reported as the {@code outputBytes} secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PptxRenderModeBenchmark {
+
+    @Param({"RASTER", "VECTOR"})
+    public SlideRenderMode mode;
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private Path workDir;
+    private File source;
+    private File dest;
+    private RenderPool renderPool;
+    private PdfConverter converter;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class OutputSize {
+        public long outputBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("bench-pptx-" + mode);
+        source = BenchmarkFixtures.create("pptx", size, workDir).toFile();
+        dest = workDir.resolve("out.pdf").toFile();
+        renderPool = new RenderPool(0);
+        converter = Converters.pptx(renderPool, mode);
+    }
+
+    @Benchmark
+    public void convert(OutputSize output) throws Exception {
+        converter.convert(source, dest);
+        output.outputBytes = dest.length();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        renderPool.shutdown();
+        PathUtils.deleteDirectory(workDir);
+    }
+}
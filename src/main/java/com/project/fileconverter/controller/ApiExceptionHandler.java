@@ -0,0 +1,47 @@
+package com.project.fileconverter.controller;
+
+import com.project.fileconverter.model.ErrorResponse;
+import com.project.fileconverter.service.BatchLimitExceededException;
+import com.project.fileconverter.service.ConversionQueueFullException;
+import com.project.fileconverter.service.PreviewTooLargeException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(ConversionQueueFullException.class)
+    public ResponseEntity<ErrorResponse> queueFull(ConversionQueueFullException e) {
+        ErrorResponse err = ErrorResponse.builder()
+                .error("Too many requests")
+                .message(e.getMessage())
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .build();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(err);
+    }
+
+    @ExceptionHandler(BatchLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> batchTooLarge(BatchLimitExceededException e) {
+        ErrorResponse err = ErrorResponse.builder()
+                .error("Batch too large")
+                .message(e.getMessage())
+                .status(HttpStatus.CONTENT_TOO_LARGE.value())
+                .build();
+        return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).body(err);
+    }
+
+    @ExceptionHandler(PreviewTooLargeException.class)
+    public ResponseEntity<ErrorResponse> previewTooLarge(PreviewTooLargeException e) {
+        ErrorResponse err = ErrorResponse.builder()
+                .error("Page too large")
+                .message(e.getMessage())
+                .status(HttpStatus.UNPROCESSABLE_CONTENT.value())
+                .build();
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT).body(err);
+    }
+}
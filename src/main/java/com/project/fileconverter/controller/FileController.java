@@ -1,60 +1,251 @@
 package com.project.fileconverter.controller;
 
+import com.project.fileconverter.converter.ConverterRegistry;
+import com.project.fileconverter.model.ConversionOptions;
 import com.project.fileconverter.model.ConvertResponse;
+import com.project.fileconverter.model.ErrorResponse;
+import com.project.fileconverter.model.JobResponse;
+import com.project.fileconverter.model.JobStatus;
+import com.project.fileconverter.model.SlideRenderMode;
 import com.project.fileconverter.model.StoredFile;
+import com.project.fileconverter.model.SupportedFormat;
+import com.project.fileconverter.service.BatchConversionService;
+import com.project.fileconverter.service.ConversionJob;
+import com.project.fileconverter.service.ConversionJobService;
 import com.project.fileconverter.service.ConverterService;
+import com.project.fileconverter.service.MergeService;
+import com.project.fileconverter.service.PagePreviewService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api")
 public class FileController {
 
     private final ConverterService converter;
+    private final ConversionJobService jobs;
+    private final BatchConversionService batch;
+    private final MergeService merge;
+    private final PagePreviewService previews;
+    private final ConverterRegistry registry;
 
-    public FileController(ConverterService converter) {
+    public FileController(ConverterService converter, ConversionJobService jobs, BatchConversionService batch,
+                          MergeService merge, PagePreviewService previews, ConverterRegistry registry) {
         this.converter = converter;
+        this.jobs = jobs;
+        this.batch = batch;
+        this.merge = merge;
+        this.previews = previews;
+        this.registry = registry;
     }
 
     @PostMapping("/convert")
-    public ResponseEntity<ConvertResponse> convert(@RequestParam("file") MultipartFile file) throws IOException {
-        StoredFile stored = converter.storeAndConvert(file);
-        ConvertResponse resp = ConvertResponse.builder()
-                .id(stored.getId())
-                .originalFilename(stored.getOriginalFilename())
-                .contentType(stored.getContentType())
-                .viewUrl("/api/view/" + stored.getId())
-                .downloadUrl("/api/download/" + stored.getId())
-                .build();
-        return ResponseEntity.ok(resp);
+    public ResponseEntity<ConvertResponse> convert(@RequestParam("file") MultipartFile file,
+                                                   @RequestParam(value = "slideMode", required = false) SlideRenderMode slideMode) throws IOException {
+        ConversionOptions options = ConversionOptions.builder().slideRenderMode(slideMode).build();
+        return accepted(jobs.submit(file, options));
+    }
+
+    /**
+     * Convert several files into one PDF, with parts in the order they were sent.
+     * Responds like /convert; the merged PDF is available from the job's view URL.
+     */
+    @PostMapping("/merge")
+    public ResponseEntity<ConvertResponse> convertMerged(@RequestParam("files") List<MultipartFile> files,
+                                                         @RequestParam(value = "slideMode", required = false) SlideRenderMode slideMode) throws IOException {
+        ConversionOptions options = ConversionOptions.builder().slideRenderMode(slideMode).build();
+        return accepted(merge.submit(files, options));
+    }
+
+    /**
+     * Convert many files, or ZIP archives of files, in one request. The response is a ZIP
+     * streamed while conversions finish, ending with a manifest.csv of per-file results.
+     */
+    @PostMapping(value = "/batch", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> convertBatch(@RequestParam("files") List<MultipartFile> files,
+                                                              @RequestParam(value = "slideMode", required = false) SlideRenderMode slideMode) throws IOException {
+        ConversionOptions options = ConversionOptions.builder().slideRenderMode(slideMode).build();
+        List<BatchConversionService.Item> items = batch.store(files);
+        StreamingResponseBody body = out -> batch.convert(items, options, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"converted.zip\"")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+
+    /**
+     * Input formats that can be converted, by converter. PDF uploads are accepted as well
+     * and served as they are.
+     */
+    @GetMapping("/formats")
+    public List<SupportedFormat> formats() {
+        return registry.capabilities().entrySet().stream()
+                .map(e -> SupportedFormat.builder()
+                        .converter(e.getKey())
+                        .mimeTypes(e.getValue().mimeTypes().stream().sorted().toList())
+                        .extensions(e.getValue().extensions().stream().sorted().toList())
+                        .priority(e.getValue().priority())
+                        .build())
+                .toList();
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<JobResponse> jobStatus(@PathVariable String id) {
+        ConversionJob job = jobs.getJob(id);
+        if (job == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(toJobResponse(job));
+    }
+
+    /**
+     * Cancel a queued or running job. A running conversion is interrupted and its files
+     * are removed; the job stays visible with status CANCELLED.
+     */
+    @PostMapping("/jobs/{id}/cancel")
+    public ResponseEntity<?> cancelJob(@PathVariable String id) {
+        ConversionJob job = jobs.getJob(id);
+        if (job == null) return ResponseEntity.notFound().build();
+        if (!jobs.cancel(job)) {
+            ErrorResponse err = ErrorResponse.builder()
+                    .error("Job already finished")
+                    .message("Job " + id + " is " + job.getStatus())
+                    .status(HttpStatus.CONFLICT.value())
+                    .build();
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(err);
+        }
+        return ResponseEntity.ok(toJobResponse(job));
+    }
+
+    @GetMapping("/jobs/{id}/result")
+    public ResponseEntity<?> jobResult(@PathVariable String id) {
+        ConversionJob job = jobs.getJob(id);
+        if (job == null) return ResponseEntity.notFound().build();
+        if (job.getStatus() == JobStatus.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.SEE_OTHER).location(URI.create("/api/view/" + id)).build();
+        }
+        if (job.getStatus() == JobStatus.FAILED) {
+            ErrorResponse err = ErrorResponse.builder()
+                    .error("Conversion failed")
+                    .message(job.getError())
+                    .status(HttpStatus.UNPROCESSABLE_ENTITY.value())
+                    .build();
+            return ResponseEntity.unprocessableEntity().body(err);
+        }
+        if (job.getStatus() == JobStatus.CANCELLED) {
+            ErrorResponse err = ErrorResponse.builder()
+                    .error("Conversion cancelled")
+                    .message(job.getError())
+                    .status(HttpStatus.GONE.value())
+                    .build();
+            return ResponseEntity.status(HttpStatus.GONE).body(err);
+        }
+        return ResponseEntity.accepted().body(toJobResponse(job));
     }
 
     @GetMapping("/view/{id}")
-    public ResponseEntity<byte[]> view(@PathVariable String id) throws IOException {
+    public ResponseEntity<Resource> view(@PathVariable String id) throws IOException {
         var pdfPath = converter.getPdfPath(id);
         if (pdfPath == null) return ResponseEntity.notFound().build();
-        byte[] data = Files.readAllBytes(pdfPath);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + id + ".pdf\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(data);
+        return serveFile(pdfPath, MediaType.APPLICATION_PDF, "inline; filename=\"" + id + ".pdf\"");
+    }
+
+    /**
+     * Image of one page of the converted PDF, for thumbnails and previews. Pages are
+     * numbered from 1; the resolution is capped at conversion.preview.max-dpi, and lowered
+     * further for pages that would exceed conversion.preview.max-pixels.
+     */
+    @GetMapping("/view/{id}/pages/{page}")
+    public ResponseEntity<?> viewPage(@PathVariable String id,
+                                      @PathVariable int page,
+                                      @RequestParam(value = "dpi", defaultValue = "72") int dpi,
+                                      @RequestParam(value = "format", defaultValue = "png") String format) throws IOException {
+        String fmt = format.toLowerCase();
+        if (fmt.equals("jpg")) fmt = "jpeg";
+        if (!previews.getFormats().contains(fmt)) {
+            ErrorResponse err = ErrorResponse.builder()
+                    .error("Unsupported format")
+                    .message("Page images can be rendered as " + String.join(", ", previews.getFormats()))
+                    .status(HttpStatus.BAD_REQUEST.value())
+                    .build();
+            return ResponseEntity.badRequest().body(err);
+        }
+        int resolution = Math.max(1, Math.min(dpi, previews.getMaxDpi()));
+        Resource image = previews.renderPage(id, page, resolution, fmt);
+        if (image == null) return ResponseEntity.notFound().build();
+        return serve(image, MediaType.parseMediaType("image/" + fmt),
+                "inline; filename=\"" + id + "-" + page + "." + fmt + "\"");
     }
 
     @GetMapping("/download/{id}")
-    public ResponseEntity<byte[]> download(@PathVariable String id) throws IOException {
+    public ResponseEntity<Resource> download(@PathVariable String id) throws IOException {
         var path = converter.getOriginalPath(id);
         if (path == null) return ResponseEntity.notFound().build();
-        byte[] data = Files.readAllBytes(path);
         String fname = path.getFileName().toString();
+        return serveFile(path, MediaType.APPLICATION_OCTET_STREAM, "attachment; filename=\"" + fname + "\"");
+    }
+
+    private ResponseEntity<Resource> serveFile(Path path, MediaType type, String disposition) throws IOException {
+        return serve(new FileSystemResource(path), type, disposition);
+    }
+
+    /**
+     * Stream a stored file from disk. Returning a {@link Resource} lets Spring copy it in
+     * fixed-size chunks, answer Range requests with 206 partial content, and reply 304 when
+     * the ETag or Last-Modified validators still match. Stored files never change once
+     * written, so size and modification time are enough for a strong ETag.
+     */
+    private ResponseEntity<Resource> serve(Resource resource, MediaType type, String disposition) throws IOException {
+        long lastModified = resource.lastModified();
+        String etag = "\"" + Long.toHexString(resource.contentLength()) + "-" + Long.toHexString(lastModified) + "\"";
         return ResponseEntity.ok()
-            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fname + "\"")
-            .contentType(MediaType.APPLICATION_OCTET_STREAM)
-            .body(data);
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(type)
+                .eTag(etag)
+                .lastModified(lastModified)
+                .body(resource);
+    }
+
+    private ResponseEntity<ConvertResponse> accepted(ConversionJob job) {
+        StoredFile stored = job.getStoredFile();
+        String statusUrl = "/api/jobs/" + job.getId();
+        ConvertResponse resp = ConvertResponse.builder()
+                .id(job.getId())
+                .status(job.getStatus())
+                .statusUrl(statusUrl)
+                .originalFilename(stored.getOriginalFilename())
+                .contentType(stored.getContentType())
+                .viewUrl("/api/view/" + job.getId())
+                .downloadUrl("/api/download/" + job.getId())
+                .build();
+        return ResponseEntity.accepted().location(URI.create(statusUrl)).body(resp);
+    }
+
+    private JobResponse toJobResponse(ConversionJob job) {
+        StoredFile stored = job.getStoredFile();
+        boolean completed = job.getStatus() == JobStatus.COMPLETED;
+        return JobResponse.builder()
+                .id(job.getId())
+                .status(job.getStatus())
+                .originalFilename(stored.getOriginalFilename())
+                .contentType(stored.getContentType())
+                .viewUrl(completed ? "/api/view/" + job.getId() : null)
+                .downloadUrl("/api/download/" + job.getId())
+                .error(job.getError())
+                .submittedAt(job.getSubmittedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
     }
 }
@@ -0,0 +1,25 @@
+package com.project.fileconverter.converter;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Cooperative cancellation for converter loops. A conversion that is cancelled or runs
+ * past its deadline has its thread interrupted; converters call {@link #check} between
+ * units of work (lines, rows, frames, slides) so they stop promptly and release what
+ * they hold.
+ */
+final class Cancellation {
+
+    private Cancellation() {
+    }
+
+    /**
+     * @throws InterruptedIOException if the current thread has been interrupted; the
+     *         interrupt flag is left set
+     */
+    static void check(String what) throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Interrupted while " + what);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.project.fileconverter.converter;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * What a converter accepts: exact MIME types or wildcards such as {@code text/*}, and
+ * file extensions without the dot, all lower case. When two converters claim the same
+ * type or extension, the higher priority wins. {@code costUnit} is what the scheduler
+ * counts to predict a conversion's run time; it defaults to the input size.
+ */
+public record ConverterCapabilities(Set<String> mimeTypes, Set<String> extensions, int priority, CostUnit costUnit) {
+
+    public ConverterCapabilities {
+        mimeTypes = Set.copyOf(mimeTypes);
+        extensions = Set.copyOf(extensions);
+        if (costUnit == null) costUnit = CostUnit.KIB;
+    }
+
+    public ConverterCapabilities(Set<String> mimeTypes, Set<String> extensions) {
+        this(mimeTypes, extensions, 0, CostUnit.KIB);
+    }
+
+    public ConverterCapabilities(Set<String> mimeTypes, Set<String> extensions, int priority) {
+        this(mimeTypes, extensions, priority, CostUnit.KIB);
+    }
+
+    public ConverterCapabilities(Set<String> mimeTypes, Set<String> extensions, CostUnit costUnit) {
+        this(mimeTypes, extensions, 0, costUnit);
+    }
+
+    /**
+     * Whether the type or the file name's extension is accepted.
+     */
+    public boolean matches(String mimeType, String filename) {
+        String type = normalizeType(mimeType);
+        if (type != null) {
+            String wildcard = wildcard(type);
+            if (mimeTypes.contains(type) || (wildcard != null && mimeTypes.contains(wildcard))) return true;
+        }
+        String extension = extension(filename);
+        return extension != null && extensions.contains(extension);
+    }
+
+    /** MIME type without parameters, lower case; null if blank. */
+    static String normalizeType(String mimeType) {
+        if (mimeType == null) return null;
+        int params = mimeType.indexOf(';');
+        String type = (params >= 0 ? mimeType.substring(0, params) : mimeType).trim().toLowerCase(Locale.ROOT);
+        return type.isEmpty() ? null : type;
+    }
+
+    /** {@code text/*} for {@code text/plain}; null if the type has no subtype. */
+    static String wildcard(String type) {
+        int slash = type.indexOf('/');
+        return slash > 0 ? type.substring(0, slash) + "/*" : null;
+    }
+
+    /** Lower-case extension of a file name, or null if it has none. */
+    static String extension(String filename) {
+        if (filename == null) return null;
+        int dot = filename.lastIndexOf('.');
+        if (dot < 0 || dot == filename.length() - 1 || filename.indexOf('/', dot) >= 0 || filename.indexOf('\\', dot) >= 0) {
+            return null;
+        }
+        return filename.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+}
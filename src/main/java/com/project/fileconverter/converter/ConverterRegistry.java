@@ -0,0 +1,109 @@
+package com.project.fileconverter.converter;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks the converter for a file from lookup tables built once at startup from every
+ * converter's {@link ConverterCapabilities}.
+ * <p>
+ * An exact MIME type match wins over a wildcard such as {@code text/*}, and either wins
+ * over the file extension, so {@code text/html} goes to the HTML converter whatever the
+ * bean order. Two converters claiming the same key at the same priority fail startup
+ * rather than being resolved by chance.
+ */
+@Component
+public class ConverterRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ConverterRegistry.class);
+
+    private final Map<String, PdfConverter> byName;
+    private final Map<String, PdfConverter> byMimeType;
+    private final Map<String, PdfConverter> byWildcard;
+    private final Map<String, PdfConverter> byExtension;
+
+    public ConverterRegistry(List<PdfConverter> converters) {
+        Map<String, PdfConverter> names = new LinkedHashMap<>();
+        Map<String, PdfConverter> mimeTypes = new HashMap<>();
+        Map<String, PdfConverter> wildcards = new HashMap<>();
+        Map<String, PdfConverter> extensions = new HashMap<>();
+        List<PdfConverter> sorted = converters.stream().sorted(Comparator.comparing(ConverterRegistry::nameOf)).toList();
+        for (PdfConverter converter : sorted) {
+            names.put(nameOf(converter), converter);
+            ConverterCapabilities caps = converter.capabilities();
+            for (String type : caps.mimeTypes()) {
+                register(type.endsWith("/*") ? wildcards : mimeTypes, type, converter);
+            }
+            for (String extension : caps.extensions()) {
+                register(extensions, extension, converter);
+            }
+        }
+        this.byName = Map.copyOf(names);
+        this.byMimeType = Map.copyOf(mimeTypes);
+        this.byWildcard = Map.copyOf(wildcards);
+        this.byExtension = Map.copyOf(extensions);
+        log.info("Registered {} converters for {} MIME types and {} extensions",
+                names.size(), mimeTypes.size() + wildcards.size(), extensions.size());
+    }
+
+    private static void register(Map<String, PdfConverter> table, String key, PdfConverter converter) {
+        PdfConverter existing = table.get(key);
+        if (existing != null) {
+            int current = existing.capabilities().priority();
+            int candidate = converter.capabilities().priority();
+            if (candidate == current) {
+                throw new IllegalStateException(nameOf(existing) + " and " + nameOf(converter)
+                        + " both handle " + key + " at priority " + current);
+            }
+            if (candidate < current) return;
+        }
+        table.put(key, converter);
+    }
+
+    /**
+     * @return the converter for the detected type or, failing that, the file name's
+     *         extension; null if none handles either
+     */
+    public PdfConverter find(String mimeType, String filename) {
+        String type = ConverterCapabilities.normalizeType(mimeType);
+        if (type != null) {
+            PdfConverter converter = byMimeType.get(type);
+            if (converter != null) return converter;
+            String wildcard = ConverterCapabilities.wildcard(type);
+            converter = wildcard != null ? byWildcard.get(wildcard) : null;
+            if (converter != null) return converter;
+        }
+        String extension = ConverterCapabilities.extension(filename);
+        return extension != null ? byExtension.get(extension) : null;
+    }
+
+    /**
+     * @return the converter with the given name, as returned by {@link #nameOf}, or null
+     */
+    public PdfConverter get(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * Every registered converter and what it accepts, by name.
+     */
+    public Map<String, ConverterCapabilities> capabilities() {
+        Map<String, ConverterCapabilities> all = new LinkedHashMap<>();
+        byName.keySet().stream().sorted().forEach(name -> all.put(name, byName.get(name).capabilities()));
+        return all;
+    }
+
+    /**
+     * Name identifying a converter in format keys, cache keys and worker requests.
+     */
+    public static String nameOf(PdfConverter converter) {
+        return converter.getClass().getSimpleName();
+    }
+}
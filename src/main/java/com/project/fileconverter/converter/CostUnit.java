@@ -0,0 +1,21 @@
+package com.project.fileconverter.converter;
+
+/**
+ * The unit of work that best predicts a converter's run time. Units other than
+ * {@link #KIB} are read from the document's own metadata; files that do not carry the
+ * count, such as legacy binary formats, fall back to their size.
+ */
+public enum CostUnit {
+
+    /** Pages, from {@code docProps/app.xml} of an OOXML package. */
+    PAGES,
+
+    /** Slides, from {@code docProps/app.xml} of an OOXML package. */
+    SLIDES,
+
+    /** Rows, from each worksheet's {@code <dimension>} element. */
+    ROWS,
+
+    /** Input size in KiB. */
+    KIB
+}
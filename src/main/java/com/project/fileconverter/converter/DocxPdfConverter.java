@@ -1,60 +1,99 @@
 package com.project.fileconverter.converter;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.Set;
 
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
 import com.spire.doc.Document; // Dependency for .doc conversion
 import com.spire.doc.FileFormat;
 
-import org.docx4j.Docx4J;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.poi.hwpf.HWPFDocument;
+import org.apache.poi.hwpf.converter.WordToHtmlConverter;
+import org.apache.poi.util.XMLHelper;
 import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
  * DOCX to PDF converter using docx4j library.
  * Preserves formatting, styles, fonts, tables, and structure from the DOCX document.
- * Uses FOP (Formatting Objects Processor) for high-fidelity PDF conversion.
+ * Uses FOP (Formatting Objects Processor) for high-fidelity PDF conversion,
+ * rendered through the shared, pre-warmed {@link DocxRenderEngine}.
+ * <p>
+ * Legacy .doc files go through {@code conversion.docx.legacy-engine}: SPIRE converts them
+ * to a temporary DOCX file that docx4j then opens, and HWPF renders POI's HTML conversion
+ * of the document directly, without docx4j.
  */
 @Component
 public class DocxPdfConverter implements PdfConverter {
+
+    private static final ConverterCapabilities CAPABILITIES = new ConverterCapabilities(
+            Set.of("application/vnd.openxmlformats-officedocument.wordprocessingml.document", "application/msword"),
+            Set.of("docx", "doc"),
+            CostUnit.PAGES);
     
     private static final Logger log = LoggerFactory.getLogger(DocxPdfConverter.class);
 
+    /** How legacy .doc files are converted. */
+    public enum LegacyEngine { SPIRE, HWPF }
+
+    private final DocxRenderEngine engine;
+    private final PdfOutputFactory outputs;
+    private final LegacyEngine legacyEngine;
+
+    public DocxPdfConverter(DocxRenderEngine engine,
+                            PdfOutputFactory outputs,
+                            @Value("${conversion.docx.legacy-engine:SPIRE}") LegacyEngine legacyEngine) {
+        this.engine = engine;
+        this.outputs = outputs;
+        this.legacyEngine = legacyEngine;
+    }
+
     @Override
     public void convert(File source, File dest) throws IOException {
+        File docx = null;
         try {
-            InputStream docxInputStream;
-            
+            dest.getAbsoluteFile().getParentFile().mkdirs();
+            File input = source;
+
             // 1. Check if the file is a legacy .doc file
             if (isLegacyDoc(source)) {
-                // Convert .doc to .docx stream dynamically
-                docxInputStream = convertDocToDocxStream(source);
-            } else {
-                // It is likely already .docx, load directly
-                docxInputStream = new FileInputStream(source);
+                if (legacyEngine == LegacyEngine.HWPF) {
+                    convertDocWithHwpf(source, dest);
+                    return;
+                }
+                // Convert .doc to a .docx file next to the output
+                docx = new File(dest.getAbsoluteFile().getParentFile(), dest.getName() + ".docx");
+                convertDocToDocx(source, docx);
+                input = docx;
+            }
+            Cancellation.check("loading " + source.getName());
+            WordprocessingMLPackage wordMLPackage = WordprocessingMLPackage.load(input);
+            // docx4j does not check for interrupts itself; this is the last point to stop
+            Cancellation.check("rendering " + source.getName());
+            try (OutputStream os = new FileOutputStream(dest)) {
+                engine.render(wordMLPackage, os);
             }
-            // InputStream templateInputStream;
-            WordprocessingMLPackage wordMLPackage;
-            FileOutputStream os;
-			// templateInputStream = new FileInputStream(source);
-            wordMLPackage = WordprocessingMLPackage.load(docxInputStream);
-            String outputfilepath = dest.getAbsolutePath();
-            File outputFile = new File(outputfilepath);
-            outputFile.getParentFile().mkdirs();
-            os = new FileOutputStream(outputfilepath);
-            Docx4J.toPDF(wordMLPackage,os);
-            os.flush();
-            os.close();
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while converting " + source.getName());
         } catch (Exception e) {
             log.error("Failed to convert DOCX to PDF: {}", e.getMessage(), e);
             throw new IOException("DOCX to PDF conversion failed: " + e.getMessage(), e);
+        } finally {
+            if (docx != null) Files.deleteIfExists(docx.toPath());
         }
     }
 
@@ -62,24 +101,51 @@ public class DocxPdfConverter implements PdfConverter {
         return file.getName().toLowerCase().endsWith(".doc");
     }
 
-    private InputStream convertDocToDocxStream(File source) {
+    private void convertDocToDocx(File source, File docx) {
         // Load the legacy .doc file
         Document document = new Document();
-        document.loadFromFile(source.getAbsolutePath());
+        try {
+            document.loadFromFile(source.getAbsolutePath());
+            // Write the .docx straight to disk; docx4j reads it back from there
+            document.saveToFile(docx.getAbsolutePath(), FileFormat.Docx);
+        } finally {
+            document.close();
+        }
+    }
 
-        // Save it to a Byte Array Output Stream as .docx
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        document.saveToStream(baos, FileFormat.Docx);
-        document.close();
+    /**
+     * Pure-POI path: HWPF converts the document to an HTML DOM, which openhtmltopdf renders.
+     * Pictures are inlined as data URIs.
+     */
+    private void convertDocWithHwpf(File source, File dest) throws Exception {
+        org.w3c.dom.Document html;
+        try (InputStream in = Files.newInputStream(source.toPath()); HWPFDocument doc = new HWPFDocument(in)) {
+            WordToHtmlConverter converter = new WordToHtmlConverter(XMLHelper.newDocumentBuilder().newDocument());
+            converter.setPicturesManager((content, type, name, widthInches, heightInches) ->
+                    "data:" + type.getMime() + ";base64," + Base64.getEncoder().encodeToString(content));
+            converter.processDocument(doc);
+            html = converter.getDocument();
+        }
+        Cancellation.check("rendering " + source.getName());
+        try (OutputStream os = new FileOutputStream(dest);
+             PdfOutputFactory.PdfOutput output = outputs.open();
+             PDDocument pdf = output.newDocument()) {
+            PdfRendererBuilder builder = new PdfRendererBuilder();
+            builder.useFastMode();
+            builder.usePDDocument(pdf);
+            builder.withW3cDocument(html, source.toURI().toString());
+            builder.toStream(os);
+            builder.run();
+        }
+    }
 
-        // Return the byte array as an Input Stream for Docx4j to read
-        return new ByteArrayInputStream(baos.toByteArray());
+    @Override
+    public String version() {
+        return legacyEngine == LegacyEngine.HWPF ? "1-hwpf" : "1";
     }
 
     @Override
-    public boolean supports(String mimeType, String filename) {
-        if (mimeType != null && (mimeType.equals("application/vnd.openxmlformats-officedocument.wordprocessingml.document") || mimeType.equals("application/msword"))) 
-            return true;
-        return filename != null && (filename.toLowerCase().endsWith(".docx") || filename.toLowerCase().endsWith(".doc"));
+    public ConverterCapabilities capabilities() {
+        return CAPABILITIES;
     }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.project.fileconverter.converter;
+
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.docx4j.Docx4J;
+import org.docx4j.fonts.IdentityPlusMapper;
+import org.docx4j.fonts.Mapper;
+import org.docx4j.fonts.PhysicalFonts;
+import org.docx4j.jaxb.Context;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Long-lived docx4j/FOP rendering engine shared by all DOCX conversions.
+ * <p>
+ * The expensive one-off work (JAXB context creation, physical font discovery, font
+ * mapper setup and FOP/XSLT class loading) happens once, and a warm-up conversion runs
+ * in the background when the application starts. Font mappers are mutable, so each
+ * render borrows one from a fixed pool; the pool size also caps concurrent DOCX renders.
+ */
+@Component
+public class DocxRenderEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(DocxRenderEngine.class);
+
+    private final BlockingQueue<Mapper> mappers;
+    private final boolean prewarm;
+
+    public DocxRenderEngine(@Value("${conversion.docx.pool-size:0}") int poolSize,
+                            @Value("${conversion.docx.prewarm:true}") boolean prewarm) {
+        int size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.mappers = new ArrayBlockingQueue<>(size);
+        this.prewarm = prewarm;
+        for (int i = 0; i < size; i++) {
+            mappers.add(new IdentityPlusMapper());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!prewarm) return;
+        Thread t = new Thread(this::runWarmUp, "docx-warmup");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Render a loaded package to PDF using a pooled font mapper.
+     *
+     * @throws InterruptedIOException if interrupted while waiting for a free mapper
+     */
+    public void render(WordprocessingMLPackage wordMLPackage, OutputStream os) throws Exception {
+        Mapper mapper;
+        try {
+            mapper = mappers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a DOCX font mapper");
+        }
+        try {
+            wordMLPackage.setFontMapper(mapper);
+            Docx4J.toPDF(wordMLPackage, os);
+        } finally {
+            mappers.add(mapper);
+        }
+    }
+
+    private void runWarmUp() {
+        long start = System.nanoTime();
+        try {
+            // Touching the context forces the JAXB setup; font discovery is cached statically
+            Context.jc.hashCode();
+            PhysicalFonts.discoverPhysicalFonts();
+
+            WordprocessingMLPackage wordMLPackage = WordprocessingMLPackage.createPackage();
+            wordMLPackage.getMainDocumentPart().addParagraphOfText("warm-up");
+            render(wordMLPackage, OutputStream.nullOutputStream());
+            log.info("DOCX engine warmed up in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("DOCX engine warm-up failed: {}", e.getMessage());
+        }
+    }
+}
@@ -1,41 +1,155 @@
 package com.project.fileconverter.converter;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import org.apache.fontbox.ttf.NamingTable;
+import org.apache.fontbox.ttf.OS2WindowsMetricsTable;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.pdmodel.PDDocument;
 import org.jsoup.Jsoup;
+import org.jsoup.helper.W3CDom;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
-import org.jsoup.nodes.Document;
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
+import com.openhtmltopdf.extend.impl.FSDefaultCacheStore;
+import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder.FontStyle;
 import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
 
+/**
+ * HTML to PDF converter on openhtmltopdf.
+ * <p>
+ * State that does not depend on the document is set up once and shared by every render:
+ * fonts from {@code conversion.html.font-dirs} are read into memory at startup, font
+ * metrics are cached across renders, and stylesheets, images and fonts linked over
+ * HTTP(S) come from a bounded {@link HtmlResourceCache}. The source is parsed once by
+ * Jsoup and handed to the renderer as a W3C DOM. The output document's heap comes from
+ * the shared {@link PdfOutputFactory} budget.
+ */
 @Component
 public class HtmlPdfConverter implements PdfConverter {
 
+    private static final ConverterCapabilities CAPABILITIES = new ConverterCapabilities(
+            Set.of("text/html"),
+            Set.of("html", "htm"));
+
+    private static final Logger log = LoggerFactory.getLogger(HtmlPdfConverter.class);
+
+    private final PdfOutputFactory outputs;
+    private final HtmlResourceCache resources;
+    private final FSCacheEx<String, FSCacheValue> fontMetrics = new FSDefaultCacheStore();
+    private final List<PreloadedFont> fonts;
+
+    private record PreloadedFont(String family, int weight, FontStyle style, byte[] data) {
+    }
+
+    public HtmlPdfConverter(PdfOutputFactory outputs,
+                            @Value("${conversion.html.resource-cache-size:64MB}") DataSize cacheSize,
+                            @Value("${conversion.html.max-cached-resource:8MB}") DataSize maxCachedResource,
+                            @Value("${conversion.html.resource-ttl:PT10M}") Duration resourceTtl,
+                            @Value("${conversion.html.font-dirs:}") List<String> fontDirs) {
+        this.outputs = outputs;
+        this.resources = new HtmlResourceCache(cacheSize.toBytes(), maxCachedResource.toBytes(), resourceTtl);
+        this.fonts = loadFonts(fontDirs);
+    }
+
     @Override
     public void convert(File source, File dest) throws IOException {
         try {
-            String rawHtml = Files.readString(source.toPath());
-            Document doc = Jsoup.parse(rawHtml);
-            doc.outputSettings().syntax(Document.OutputSettings.Syntax.xml); 
-            
-            try (OutputStream os = Files.newOutputStream(dest.toPath())) {
+            String baseUri = source.toURI().toString();
+            // Jsoup detects the charset from the BOM or meta tag
+            Document doc = Jsoup.parse(source, null, baseUri);
+            // openhtmltopdf does not check for interrupts itself; this is the last point to stop
+            Cancellation.check("rendering " + source.getName());
+
+            try (OutputStream os = Files.newOutputStream(dest.toPath());
+                 PdfOutputFactory.PdfOutput output = outputs.open();
+                 PDDocument pdf = output.newDocument()) {
                 PdfRendererBuilder builder = new PdfRendererBuilder();
-                
-                builder.withHtmlContent(doc.html(), source.toURI().toString()); 
+                builder.useFastMode();
+                builder.usePDDocument(pdf);
+                builder.useHttpStreamImplementation(resources);
+                builder.useCacheStore(PdfRendererBuilder.CacheStore.PDF_FONT_METRICS, fontMetrics);
+                for (PreloadedFont font : fonts) {
+                    builder.useFont(() -> new ByteArrayInputStream(font.data()), font.family(), font.weight(), font.style(), true);
+                }
+                builder.withW3cDocument(new W3CDom().fromJsoup(doc), baseUri);
                 builder.toStream(os);
                 builder.run();
             }
+        } catch (InterruptedIOException e) {
+            throw e;
         } catch (Exception e) {
             throw new IOException("HTML to PDF conversion failed", e);
         }
     }
 
+    /**
+     * Read every TrueType font in the given directories, with the family, weight and style
+     * from its own tables.
+     */
+    private static List<PreloadedFont> loadFonts(List<String> dirs) {
+        List<PreloadedFont> loaded = new ArrayList<>();
+        for (String dir : dirs) {
+            if (dir.isBlank()) continue;
+            Path path = Paths.get(dir.trim());
+            if (!Files.isDirectory(path)) continue;
+            try (Stream<Path> files = Files.walk(path)) {
+                files.filter(p -> p.getFileName().toString().toLowerCase().endsWith(".ttf")).forEach(p -> {
+                    try {
+                        loaded.add(readFont(p));
+                    } catch (IOException | RuntimeException e) {
+                        log.debug("Skipping font {}: {}", p, e.getMessage());
+                    }
+                });
+            } catch (IOException e) {
+                log.warn("Could not scan font directory {}: {}", dir, e.getMessage());
+            }
+        }
+        log.info("Preloaded {} fonts for HTML conversion", loaded.size());
+        return List.copyOf(loaded);
+    }
+
+    private static PreloadedFont readFont(Path file) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        try (TrueTypeFont ttf = new TTFParser().parse(new ByteArrayInputStream(data))) {
+            NamingTable naming = ttf.getNaming();
+            OS2WindowsMetricsTable os2 = ttf.getOS2Windows();
+            String family = naming != null ? naming.getFontFamily() : null;
+            if (family == null) throw new IOException("no family name");
+            String subFamily = naming.getFontSubFamily() != null ? naming.getFontSubFamily().toLowerCase() : "";
+            int weight = os2 != null ? os2.getWeightClass() : (subFamily.contains("bold") ? 700 : 400);
+            FontStyle style = subFamily.contains("italic") || subFamily.contains("oblique") ? FontStyle.ITALIC : FontStyle.NORMAL;
+            return new PreloadedFont(family, weight, style, data);
+        }
+    }
+
+    @Override
+    public String version() {
+        // 2: linked stylesheets decoded with the charset they are served with
+        return "2";
+    }
+
     @Override
-    public boolean supports(String mimeType, String filename) {
-        if (mimeType != null && mimeType.equals("text/html")) return true;
-        return filename != null && (filename.toLowerCase().endsWith(".html") || filename.toLowerCase().endsWith(".htm"));
+    public ConverterCapabilities capabilities() {
+        return CAPABILITIES;
     }
 }
@@ -0,0 +1,172 @@
+package com.project.fileconverter.converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openhtmltopdf.extend.FSStream;
+import com.openhtmltopdf.extend.FSStreamFactory;
+
+/**
+ * Shared LRU cache for stylesheets, images and fonts that HTML documents link over
+ * HTTP(S). Entries are bounded by total size and expire after a fixed time, so an edited
+ * stylesheet is picked up again. Resources larger than the per-entry limit, by their
+ * {@code Content-Length} or once that many bytes have been read, are not cached: the
+ * renderer reads them straight from a new connection instead, so no resource is ever held
+ * on the heap beyond the limit. Each entry keeps the charset from its {@code Content-Type} header, so
+ * stylesheets are decoded as served, falling back to UTF-8. Thread-safe, and shared by
+ * all renders.
+ */
+class HtmlResourceCache implements FSStreamFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(HtmlResourceCache.class);
+
+    private static final int TIMEOUT_MILLIS = 10_000;
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    private record Entry(byte[] data, Charset charset, long fetchedAt) {
+    }
+
+    /** Returned by {@link #get} for resources above the per-entry limit. */
+    private static final Entry TOO_LARGE = new Entry(new byte[0], StandardCharsets.UTF_8, 0);
+
+    HtmlResourceCache(long maxBytes, long maxEntryBytes, Duration ttl) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    @Override
+    public FSStream getUrl(String url) {
+        Entry entry = get(url);
+        if (entry == TOO_LARGE) return uncached(url);
+        return new FSStream() {
+            @Override
+            public InputStream getStream() {
+                return entry != null ? new ByteArrayInputStream(entry.data()) : null;
+            }
+
+            @Override
+            public Reader getReader() {
+                return entry != null ? new InputStreamReader(new ByteArrayInputStream(entry.data()), entry.charset()) : null;
+            }
+        };
+    }
+
+    /**
+     * Stream for a resource too large to cache, read from a connection of its own.
+     */
+    private FSStream uncached(String url) {
+        return new FSStream() {
+            @Override
+            public InputStream getStream() {
+                try {
+                    return open(url).getInputStream();
+                } catch (IOException | IllegalArgumentException e) {
+                    log.warn("Could not load HTML resource {}: {}", url, e.getMessage());
+                    return null;
+                }
+            }
+
+            @Override
+            public Reader getReader() {
+                try {
+                    URLConnection connection = open(url);
+                    return new InputStreamReader(connection.getInputStream(), charsetOf(connection.getContentType()));
+                } catch (IOException | IllegalArgumentException e) {
+                    log.warn("Could not load HTML resource {}: {}", url, e.getMessage());
+                    return null;
+                }
+            }
+        };
+    }
+
+    /**
+     * @return the resource's bytes and charset, {@link #TOO_LARGE}, or null if it cannot
+     *         be fetched
+     */
+    private Entry get(String url) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry e = entries.get(url);
+            if (e != null && now - e.fetchedAt() < ttlMillis) return e;
+        }
+        Entry entry;
+        try {
+            entry = fetch(url, now);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Could not load HTML resource {}: {}", url, e.getMessage());
+            return null;
+        }
+        if (entry != TOO_LARGE) put(url, entry);
+        return entry;
+    }
+
+    private synchronized void put(String url, Entry entry) {
+        Entry previous = entries.put(url, entry);
+        if (previous != null) bytes -= previous.data().length;
+        bytes += entry.data().length;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().data().length;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Read a resource, up to one byte past the per-entry limit.
+     */
+    private Entry fetch(String url, long now) throws IOException {
+        URLConnection connection = open(url);
+        try (InputStream in = connection.getInputStream()) {
+            if (connection.getContentLengthLong() > maxEntryBytes) return TOO_LARGE;
+            byte[] data = in.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxEntryBytes + 1));
+            if (data.length > maxEntryBytes) return TOO_LARGE;
+            return new Entry(data, charsetOf(connection.getContentType()), now);
+        }
+    }
+
+    private static URLConnection open(String url) throws IOException {
+        URLConnection connection = URI.create(url).toURL().openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        return connection;
+    }
+
+    /**
+     * The {@code charset} parameter of a {@code Content-Type} header, or UTF-8 if it is
+     * missing or unknown.
+     */
+    static Charset charsetOf(String contentType) {
+        if (contentType == null) return StandardCharsets.UTF_8;
+        for (String param : contentType.split(";")) {
+            int eq = param.indexOf('=');
+            if (eq < 0 || !param.substring(0, eq).trim().equalsIgnoreCase("charset")) continue;
+            String name = param.substring(eq + 1).trim().replace("\"", "");
+            try {
+                return Charset.forName(name);
+            } catch (IllegalArgumentException e) {
+                log.debug("Unknown charset {} in {}", name, contentType);
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
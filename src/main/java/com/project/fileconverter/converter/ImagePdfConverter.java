@@ -1,33 +1,237 @@
 package com.project.fileconverter.converter;
 
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.Set;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.CCITTFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
+/**
+ * Image to PDF converter. Every page of a multi-page TIFF becomes a PDF page; other
+ * formats take only their first frame, as the extra frames of an animated GIF, APNG or
+ * WebP are animation rather than pages.
+ * <p>
+ * Frames are read one at a time through {@link ImageReader}. A frame is laid out at
+ * 72 pixels per inch, shrunk to fit {@code conversion.image.max-page}, and decoded with
+ * source subsampling so it is never held at more than {@code conversion.image.dpi} for
+ * that page size. Bilevel frames are encoded as CCITT G4, palette and transparent frames
+ * losslessly, and everything else as JPEG. Each page is written before the next frame is
+ * decoded, and image data beyond {@code conversion.image.max-main-memory}, reserved from
+ * the shared {@link PdfOutputFactory} budget, goes to a scratch file.
+ * <p>
+ * Formats without an ImageIO reader, or that ImageIO cannot decode (such as CMYK JPEG),
+ * are embedded as they are.
+ */
 @Component
 public class ImagePdfConverter implements PdfConverter {
 
+    private static final ConverterCapabilities CAPABILITIES = new ConverterCapabilities(
+            Set.of("image/*"),
+            Set.of());
+
+    private static final Logger log = LoggerFactory.getLogger(ImagePdfConverter.class);
+
+    private static final float POINTS_PER_INCH = 72f;
+
+    private final PdfOutputFactory outputs;
+    private final int dpi;
+    private final PDRectangle maxPage;
+    private final float jpegQuality;
+    private final long maxMainMemory;
+
+    public ImagePdfConverter(PdfOutputFactory outputs,
+                             @Value("${conversion.image.dpi:150}") int dpi,
+                             @Value("${conversion.image.max-page:LETTER}") String maxPage,
+                             @Value("${conversion.image.jpeg-quality:0.85}") float jpegQuality,
+                             @Value("${conversion.image.max-main-memory:16MB}") DataSize maxMainMemory) {
+        this.outputs = outputs;
+        this.dpi = dpi;
+        this.maxPage = pageSize(maxPage);
+        this.jpegQuality = jpegQuality;
+        this.maxMainMemory = maxMainMemory.toBytes();
+    }
+
     @Override
     public void convert(File source, File dest) throws IOException {
-        try (PDDocument doc = new PDDocument()) {
-            PDImageXObject pdImage = PDImageXObject.createFromFileByContent(source, doc);
-            PDPage page = new PDPage(new PDRectangle(pdImage.getWidth(), pdImage.getHeight()));
-            doc.addPage(page);
-            try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
-                content.drawImage(pdImage, 0, 0, pdImage.getWidth(), pdImage.getHeight());
+        try (PdfOutputFactory.PdfOutput output = outputs.open(maxMainMemory);
+             PDDocument doc = output.newDocument()) {
+            if (!convertFrames(source, doc)) {
+                PDImageXObject image = PDImageXObject.createFromFileByContent(source, doc);
+                addPage(doc, image, image.getWidth(), image.getHeight());
             }
             doc.save(dest);
         }
     }
 
+    /**
+     * @return false if ImageIO cannot read the image, so it has to be embedded as is
+     */
+    private boolean convertFrames(File source, PDDocument doc) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) return false;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, false, true);
+                boolean paged = isTiff(reader);
+                for (int frame = 0; frame == 0 || paged; frame++) {
+                    Cancellation.check("converting image frames");
+                    try {
+                        addFrame(source, doc, reader, frame);
+                    } catch (IndexOutOfBoundsException e) {
+                        return true;
+                    } catch (IIOException e) {
+                        if (frame == 0) {
+                            log.debug("ImageIO cannot decode {}: {}", source.getName(), e.getMessage());
+                            return false;
+                        }
+                        throw e;
+                    }
+                }
+                return true;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void addFrame(File source, PDDocument doc, ImageReader reader, int frame) throws IOException {
+        int width = reader.getWidth(frame);
+        int height = reader.getHeight(frame);
+        // Page size at 72 px per inch, shrunk to fit the largest allowed page
+        float scale = Math.min(1f, Math.min(fitWidth(width, height) / width, fitHeight(width, height) / height));
+        float pageWidth = width * scale;
+        float pageHeight = height * scale;
+        int targetWidth = Math.max(1, Math.min(width, Math.round(pageWidth / POINTS_PER_INCH * dpi)));
+        int targetHeight = Math.max(1, Math.min(height, Math.round(pageHeight / POINTS_PER_INCH * dpi)));
+
+        PDImageXObject image;
+        if (frame == 0 && targetWidth == width && isJpeg(reader) && !hasMoreFrames(reader)) {
+            // Already small enough: keep the original JPEG data rather than re-encoding it
+            try (InputStream in = Files.newInputStream(source.toPath())) {
+                image = JPEGFactory.createFromStream(doc, in);
+            }
+        } else {
+            ImageReadParam param = reader.getDefaultReadParam();
+            int step = Math.max(1, Math.min(width / targetWidth, height / targetHeight));
+            if (step > 1) param.setSourceSubsampling(step, step, 0, 0);
+            BufferedImage decoded = reader.read(frame, param);
+            image = encode(doc, resize(decoded, targetWidth, targetHeight));
+        }
+        addPage(doc, image, pageWidth, pageHeight);
+    }
+
+    private PDImageXObject encode(PDDocument doc, BufferedImage img) throws IOException {
+        if (img.getType() == BufferedImage.TYPE_BYTE_BINARY && img.getColorModel().getPixelSize() == 1) {
+            return CCITTFactory.createFromImage(doc, img);
+        }
+        if (img.getColorModel().hasAlpha() || img.getColorModel() instanceof IndexColorModel) {
+            return LosslessFactory.createFromImage(doc, img);
+        }
+        return JPEGFactory.createFromImage(doc, img, jpegQuality, dpi);
+    }
+
+    /**
+     * Scale to the exact target size; subsampling only reduces by whole steps. Bilevel and
+     * palette images are left alone, as smoothing would add colors they do not have.
+     */
+    private static BufferedImage resize(BufferedImage img, int width, int height) {
+        if (img.getWidth() <= width && img.getHeight() <= height) return img;
+        if (img.getColorModel() instanceof IndexColorModel) return img;
+        int type = img.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        if (img.getType() == BufferedImage.TYPE_BYTE_GRAY) type = BufferedImage.TYPE_BYTE_GRAY;
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(img, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private static void addPage(PDDocument doc, PDImageXObject image, float width, float height) throws IOException {
+        PDPage page = new PDPage(new PDRectangle(width, height));
+        doc.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
+            content.drawImage(image, 0, 0, width, height);
+        }
+    }
+
+    /** Allowed page width in the image's orientation. */
+    private float fitWidth(int width, int height) {
+        return width > height ? Math.max(maxPage.getWidth(), maxPage.getHeight()) : Math.min(maxPage.getWidth(), maxPage.getHeight());
+    }
+
+    private float fitHeight(int width, int height) {
+        return width > height ? Math.min(maxPage.getWidth(), maxPage.getHeight()) : Math.max(maxPage.getWidth(), maxPage.getHeight());
+    }
+
+    private static boolean isJpeg(ImageReader reader) throws IOException {
+        return "jpeg".equalsIgnoreCase(reader.getFormatName());
+    }
+
+    private static boolean isTiff(ImageReader reader) throws IOException {
+        String format = reader.getFormatName();
+        return "tif".equalsIgnoreCase(format) || "tiff".equalsIgnoreCase(format);
+    }
+
+    private static boolean hasMoreFrames(ImageReader reader) throws IOException {
+        try {
+            reader.getWidth(1);
+            return true;
+        } catch (IndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+
+    private static PDRectangle pageSize(String name) {
+        switch (name.trim().toUpperCase()) {
+            case "LETTER": return PDRectangle.LETTER;
+            case "LEGAL": return PDRectangle.LEGAL;
+            case "A3": return PDRectangle.A3;
+            case "A4": return PDRectangle.A4;
+            case "A5": return PDRectangle.A5;
+            default: throw new IllegalArgumentException("Unknown page size " + name);
+        }
+    }
+
+    @Override
+    public String version() {
+        // 2: all frames, downsampled to the target resolution
+        // 3: only TIFF expands to one page per frame
+        return "3";
+    }
+
     @Override
-    public boolean supports(String mimeType, String filename) {
-        return mimeType != null && mimeType.startsWith("image/");
+    public ConverterCapabilities capabilities() {
+        return CAPABILITIES;
     }
 }
@@ -3,6 +3,8 @@ package com.project.fileconverter.converter;
 import java.io.File;
 import java.io.IOException;
 
+import com.project.fileconverter.model.ConversionOptions;
+
 public interface PdfConverter {
     /**
      * Convert source file to PDF.
@@ -13,7 +15,40 @@ public interface PdfConverter {
     void convert(File source, File dest) throws IOException;
 
     /**
-     * Check if this converter handles the given MIME type.
+     * Convert source file to PDF using per-request options. Converters without
+     * options of their own ignore them.
+     */
+    default void convert(File source, File dest, ConversionOptions options) throws IOException {
+        convert(source, dest);
+    }
+
+    /**
+     * MIME types and extensions this converter handles, used by {@link ConverterRegistry}
+     * to dispatch files.
+     */
+    ConverterCapabilities capabilities();
+
+    /**
+     * Check if this converter handles the given MIME type or file name.
+     */
+    default boolean supports(String mimeType, String filename) {
+        return capabilities().matches(mimeType, filename);
+    }
+
+    /**
+     * Version of this converter's output. Bump it when a change alters the PDFs produced,
+     * so results cached by earlier versions are no longer reused.
+     */
+    default String version() {
+        return "1";
+    }
+
+    /**
+     * Suffix distinguishing outputs of this converter made with different options, built
+     * from the settings actually applied once defaults are resolved. Converters without
+     * options of their own return an empty string.
      */
-    boolean supports(String mimeType, String filename);
+    default String cacheVariant(ConversionOptions options) {
+        return "";
+    }
 }
@@ -0,0 +1,124 @@
+package com.project.fileconverter.converter;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Hands out the memory policy for PDFBox documents being written, so that concurrent
+ * conversions share one heap budget instead of each sizing itself.
+ * <p>
+ * Every output document may keep up to its job's cap on the heap and spills the rest to
+ * a scratch file. The caps of all open outputs together stay within
+ * {@code conversion.pdf.memory-budget}: a job that does not fit waits up to
+ * {@code conversion.pdf.admission-wait} for others to finish and then writes through a
+ * scratch file only. Output is never refused for lack of memory, only made slower.
+ */
+@Component
+public class PdfOutputFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfOutputFactory.class);
+
+    /** Budget accounting unit; keeps permit counts within an int. */
+    private static final long UNIT = 1024;
+
+    private final long defaultMaxMainMemory;
+    private final Semaphore budget;
+    private final int budgetUnits;
+    private final long admissionWaitMillis;
+    private final AtomicLong spilled = new AtomicLong();
+
+    public PdfOutputFactory(@Value("${conversion.pdf.max-main-memory:16MB}") DataSize defaultMaxMainMemory,
+                            @Value("${conversion.pdf.memory-budget:256MB}") DataSize memoryBudget,
+                            @Value("${conversion.pdf.admission-wait:PT5S}") Duration admissionWait) {
+        this.defaultMaxMainMemory = defaultMaxMainMemory.toBytes();
+        this.budgetUnits = (int) Math.min(Integer.MAX_VALUE, memoryBudget.toBytes() / UNIT);
+        this.budget = new Semaphore(budgetUnits, true);
+        this.admissionWaitMillis = admissionWait.toMillis();
+    }
+
+    /**
+     * Reserve the default {@code conversion.pdf.max-main-memory} for one output document.
+     * @see #open(long)
+     */
+    public PdfOutput open() throws InterruptedIOException {
+        return open(defaultMaxMainMemory);
+    }
+
+    /**
+     * Reserve heap for one output document. Close the returned output once the document
+     * is saved and closed, to return its share of the budget.
+     * @param maxMainMemory heap the document may use before spilling to a scratch file
+     * @throws InterruptedIOException if interrupted while waiting for admission
+     */
+    public PdfOutput open(long maxMainMemory) throws InterruptedIOException {
+        int units = (int) Math.min(budgetUnits, Math.max(1, (maxMainMemory + UNIT - 1) / UNIT));
+        try {
+            if (budget.tryAcquire(units, admissionWaitMillis, TimeUnit.MILLISECONDS)) {
+                return new PdfOutput(MemoryUsageSetting.setupMixed(maxMainMemory), units);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for PDF output memory");
+        }
+        long count = spilled.incrementAndGet();
+        log.debug("PDF memory budget exhausted; writing through a scratch file ({} times so far)", count);
+        return new PdfOutput(MemoryUsageSetting.setupTempFileOnly(), 0);
+    }
+
+    /**
+     * Budget currently free, in bytes.
+     */
+    public long getAvailableBytes() {
+        return budget.availablePermits() * UNIT;
+    }
+
+    /**
+     * Outputs that found the budget exhausted and went straight to a scratch file.
+     */
+    public long getSpilledCount() {
+        return spilled.get();
+    }
+
+    /**
+     * An admitted output: its memory policy and its share of the budget.
+     */
+    public final class PdfOutput implements AutoCloseable {
+        private final MemoryUsageSetting memory;
+        private int units;
+
+        private PdfOutput(MemoryUsageSetting memory, int units) {
+            this.memory = memory;
+            this.units = units;
+        }
+
+        public MemoryUsageSetting getMemoryUsageSetting() {
+            return memory;
+        }
+
+        /**
+         * An empty document using this output's memory policy.
+         */
+        public PDDocument newDocument() {
+            return new PDDocument(memory);
+        }
+
+        @Override
+        public void close() {
+            if (units > 0) {
+                budget.release(units);
+                units = 0;
+            }
+        }
+    }
+}
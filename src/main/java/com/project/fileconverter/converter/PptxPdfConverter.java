@@ -10,77 +10,324 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
 
 import org.apache.poi.sl.usermodel.Slide;
 import org.apache.poi.sl.usermodel.SlideShow;
 import org.apache.poi.sl.usermodel.SlideShowFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.itextpdf.awt.DefaultFontMapper;
+import com.itextpdf.awt.PdfGraphics2D;
 import com.itextpdf.text.Document;
 import com.itextpdf.text.Image;
 import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.PdfContentByte;
 import com.itextpdf.text.pdf.PdfWriter;
+import com.project.fileconverter.model.ConversionOptions;
+import com.project.fileconverter.model.SlideRenderMode;
 
+/**
+ * PPTX/PPT to PDF converter with two output modes.
+ * <p>
+ * {@link SlideRenderMode#RASTER}: slides are rasterised in parallel on the shared
+ * {@link RenderPool} and appended to the PDF in slide order. POI slide shows are not
+ * thread-safe (masters, layouts, shapes and font and picture caches are shared and built
+ * lazily), so slides rendered at the same time are drawn from separate copies of the
+ * deck, each opened from the source file. A parsed copy can be as large as the deck
+ * itself, so at most {@code conversion.pptx.max-deck-copies} copies are open, which
+ * also caps how many slides render at once. Memory per conversion is therefore bounded
+ * by that many parsed decks plus at most {@code conversion.pptx.render-window} slide
+ * images, rendered or waiting for the writer, regardless of deck size.
+ * <p>
+ * {@link SlideRenderMode#VECTOR}: slides are drawn straight onto the PDF page through
+ * iText's {@link PdfGraphics2D}, keeping shapes as vectors and text selectable. The
+ * PDF content stream is not thread-safe, so this mode renders one slide at a time.
+ */
 @Component
 public class PptxPdfConverter implements PdfConverter {
 
+    private static final ConverterCapabilities CAPABILITIES = new ConverterCapabilities(
+            Set.of("application/vnd.openxmlformats-officedocument.presentationml.presentation"),
+            Set.of("pptx", "ppt"),
+            CostUnit.SLIDES);
+
+    private static final Logger log = LoggerFactory.getLogger(PptxPdfConverter.class);
+
+    private final RenderPool renderPool;
+    private final int renderWindow;
+    private final int maxDeckCopies;
+    private final SlideRenderMode defaultMode;
+    private final DefaultFontMapper fontMapper = new DefaultFontMapper();
+
+    public PptxPdfConverter(RenderPool renderPool,
+                            @Value("${conversion.pptx.render-window:0}") int renderWindow,
+                            @Value("${conversion.pptx.max-deck-copies:4}") int maxDeckCopies,
+                            @Value("${conversion.pptx.render-mode:RASTER}") SlideRenderMode defaultMode,
+                            @Value("${conversion.pptx.font-dirs:/usr/share/fonts,C:/Windows/Fonts}") List<String> fontDirs) {
+        this.renderPool = renderPool;
+        this.renderWindow = renderWindow > 0 ? renderWindow : renderPool.getParallelism() * 2;
+        this.maxDeckCopies = Math.max(1, maxDeckCopies);
+        this.defaultMode = defaultMode;
+        registerFontDirs(fontDirs);
+    }
+
     @Override
     public void convert(File source, File dest) throws IOException {
+        convert(source, dest, ConversionOptions.defaults());
+    }
+
+    @Override
+    public void convert(File source, File dest, ConversionOptions options) throws IOException {
+        SlideRenderMode mode = renderMode(options);
         try (InputStream inputStream = Files.newInputStream(source.toPath());
             SlideShow<?, ?> ppt = SlideShowFactory.create(inputStream);
              FileOutputStream outputStream = new FileOutputStream(dest)) {
 
             Dimension pageSize = ppt.getPageSize();
-            
+
             Document pdfDocument = new Document(new Rectangle((float) pageSize.getWidth(), (float) pageSize.getHeight()), 0, 0, 0, 0);
-            PdfWriter.getInstance(pdfDocument, outputStream);
+            PdfWriter writer = PdfWriter.getInstance(pdfDocument, outputStream);
             pdfDocument.open();
 
-            int slideNumber = 1;
-
-            for (Slide<?, ?> slide : ppt.getSlides()) {
-                BufferedImage img = new BufferedImage(pageSize.width, pageSize.height, BufferedImage.TYPE_INT_RGB);
-                Graphics2D graphics = img.createGraphics();
-
-                graphics.setPaint(Color.white);
-                graphics.fill(new Rectangle2D.Float(0, 0, pageSize.width, pageSize.height));
-
-                graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-                graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-
-                try {
-                    slide.draw(graphics); 
-                } catch (Exception e) {
-                    System.err.println("Failed to render Slide " + slideNumber + ": " + e.getMessage());
-                    
-                    graphics.setPaint(Color.RED);
-                    graphics.drawRect(0, 0, pageSize.width - 1, pageSize.height - 1);
-                    graphics.drawString("Error rendering Slide " + slideNumber, 50, 50);
-                    graphics.drawString("Cause: " + e.getClass().getSimpleName(), 50, 80);
+            if (mode == SlideRenderMode.VECTOR) {
+                writeVector(ppt, pageSize, pdfDocument, writer);
+            } else {
+                writeRaster(source, ppt, pageSize, pdfDocument);
+            }
+            pdfDocument.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rendering slides");
+        } catch (ExecutionException e) {
+            throw new IOException("PPTX to PDF conversion failed", e.getCause());
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("PPTX to PDF conversion failed", e);
+        }
+    }
+
+    private void writeRaster(File source, SlideShow<?, ?> ppt, Dimension pageSize, Document pdfDocument) throws Exception {
+        int slideCount = ppt.getSlides().size();
+        Deque<Future<Image>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        try (DeckCopies decks = new DeckCopies(source, ppt, maxDeckCopies)) {
+            try {
+                while (next < slideCount || !inFlight.isEmpty()) {
+                    while (next < slideCount && inFlight.size() < renderWindow) {
+                        decks.reserve();
+                        int slideNumber = ++next;
+                        inFlight.add(renderPool.submit(() -> renderSlide(decks, pageSize, slideNumber)));
+                    }
+                    pdfDocument.add(inFlight.poll().get());
                 }
-                try {
-                    Image rendererMetafile = Image.getInstance(img, null);
-                    pdfDocument.add(rendererMetafile);
-                } catch (Exception pdfEx) {
-                    pdfEx.printStackTrace();
-                }        
+            } finally {
+                inFlight.forEach(f -> f.cancel(true));
+            }
+        }
+    }
+
+    private void writeVector(SlideShow<?, ?> ppt, Dimension pageSize, Document pdfDocument, PdfWriter writer) throws IOException {
+        PdfContentByte canvas = writer.getDirectContent();
+        int slideNumber = 1;
+        for (Slide<?, ?> slide : ppt.getSlides()) {
+            Cancellation.check("rendering slides");
+            if (slideNumber > 1) pdfDocument.newPage();
+            Graphics2D graphics = new PdfGraphics2D(canvas, pageSize.width, pageSize.height, fontMapper);
+            try {
+                drawSlide(slide, graphics, pageSize, slideNumber);
+            } finally {
                 graphics.dispose();
-                slideNumber++;
             }
-            pdfDocument.close();
+            // Direct content does not count as page content for iText; keep the page
+            writer.setPageEmpty(false);
+            slideNumber++;
+        }
+    }
+
+    /**
+     * Draw one slide and wrap it as a PDF image, so the full-size bitmap can be
+     * collected as soon as this task finishes.
+     */
+    private Image renderSlide(DeckCopies decks, Dimension pageSize, int slideNumber) throws Exception {
+        BufferedImage img = new BufferedImage(pageSize.width, pageSize.height, BufferedImage.TYPE_INT_RGB);
+        SlideShow<?, ?> deck = decks.acquire();
+        Graphics2D graphics = img.createGraphics();
+        try {
+            drawSlide(deck.getSlides().get(slideNumber - 1), graphics, pageSize, slideNumber);
+        } finally {
+            graphics.dispose();
+            decks.release(deck);
+        }
+        return Image.getInstance(img, null);
+    }
+
+    private void drawSlide(Slide<?, ?> slide, Graphics2D graphics, Dimension pageSize, int slideNumber) {
+        graphics.setPaint(Color.white);
+        graphics.fill(new Rectangle2D.Float(0, 0, pageSize.width, pageSize.height));
+
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+
+        try {
+            slide.draw(graphics);
         } catch (Exception e) {
-            System.err.println("Error during conversion: " + e.getMessage());
-            e.printStackTrace();
+            log.warn("Failed to render slide {}, drawing a placeholder: {}", slideNumber, e.getMessage());
+
+            graphics.setPaint(Color.RED);
+            graphics.drawRect(0, 0, pageSize.width - 1, pageSize.height - 1);
+            graphics.drawString("Error rendering Slide " + slideNumber, 50, 50);
+            graphics.drawString("Cause: " + e.getClass().getSimpleName(), 50, 80);
+        }
+    }
+
+    /**
+     * Make installed TrueType fonts available to vector output so slide text keeps its
+     * typeface; fonts that cannot be mapped fall back to the PDF base fonts.
+     */
+    private void registerFontDirs(List<String> fontDirs) {
+        for (String dir : fontDirs) {
+            Path root = Paths.get(dir);
+            if (!Files.isDirectory(root)) continue;
+            try (Stream<Path> dirs = Files.walk(root)) {
+                dirs.filter(Files::isDirectory).forEach(d -> fontMapper.insertDirectory(d.toString()));
+            } catch (IOException | UncheckedIOException e) {
+                log.warn("Failed to scan font directory {}: {}", dir, e.getMessage());
+            }
+        }
+    }
+
+    private SlideRenderMode renderMode(ConversionOptions options) {
+        return options.getSlideRenderMode() != null ? options.getSlideRenderMode() : defaultMode;
+    }
+
+    @Override
+    public String version() {
+        // 2: parallel raster rendering and vector mode
+        return "2";
+    }
+
+    @Override
+    public String cacheVariant(ConversionOptions options) {
+        return "-" + renderMode(options).name().toLowerCase();
+    }
+
+    /**
+     * Copies of one deck for concurrent rendering; each copy is used by one thread at a
+     * time. The writer {@link #reserve reserves} a copy before submitting a slide, so at
+     * most {@code maxCopies} slides render at once and no render thread waits for a
+     * copy. A copy is opened only when all others are busy. The caller's deck is reused
+     * as the first copy and stays open; the others are closed with this object, once
+     * the slides still drawing on them have finished.
+     */
+    private static final class DeckCopies implements AutoCloseable {
+        private final File source;
+        private final Semaphore slots;
+        private final Deque<SlideShow<?, ?>> idle = new ArrayDeque<>();
+        private final List<SlideShow<?, ?>> opened = new ArrayList<>();
+        private int leased;
+        private boolean closed;
+
+        DeckCopies(File source, SlideShow<?, ?> original, int maxCopies) {
+            this.source = source;
+            this.slots = new Semaphore(maxCopies);
+            idle.push(original);
+        }
+
+        /** Wait until a copy is free for one more slide. */
+        void reserve() throws InterruptedException {
+            slots.acquire();
+        }
+
+        /** Take the copy reserved for this slide, opening a new one if none is idle. */
+        SlideShow<?, ?> acquire() throws IOException {
+            synchronized (this) {
+                if (closed) {
+                    slots.release();
+                    throw new InterruptedIOException("Slide rendering was stopped");
+                }
+                leased++;
+                if (!idle.isEmpty()) return idle.pop();
+            }
+            // parse outside the lock so copies open in parallel
+            SlideShow<?, ?> copy = null;
+            boolean kept = false;
+            try {
+                copy = SlideShowFactory.create(source, null, true);
+                synchronized (this) {
+                    kept = !closed;
+                    if (kept) opened.add(copy);
+                }
+            } finally {
+                if (!kept) {
+                    if (copy != null) closeQuietly(copy);
+                    release(null);
+                }
+            }
+            if (!kept) throw new InterruptedIOException("Slide rendering was stopped");
+            return copy;
+        }
+
+        void release(SlideShow<?, ?> deck) {
+            synchronized (this) {
+                leased--;
+                if (deck != null && !closed) idle.push(deck);
+                notifyAll();
+            }
+            slots.release();
+        }
+
+        @Override
+        public void close() {
+            List<SlideShow<?, ?>> copies;
+            boolean interrupted = false;
+            synchronized (this) {
+                closed = true;
+                idle.clear();
+                // cancelled slides may still be drawing; their decks must stay open until they stop
+                while (leased > 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                copies = new ArrayList<>(opened);
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+            copies.forEach(DeckCopies::closeQuietly);
+        }
+
+        private static void closeQuietly(SlideShow<?, ?> copy) {
+            try {
+                copy.close();
+            } catch (IOException e) {
+                log.debug("Failed to close slide show copy: {}", e.getMessage());
+            }
         }
     }
 
     @Override
-    public boolean supports(String mimeType, String filename) {
-        if (mimeType != null && mimeType.equals("application/vnd.openxmlformats-officedocument.presentationml.presentation")) 
-            return true;
-        return filename != null && (filename.toLowerCase().endsWith(".pptx") || filename.toLowerCase().endsWith(".ppt"));
+    public ConverterCapabilities capabilities() {
+        return CAPABILITIES;
     }
 }
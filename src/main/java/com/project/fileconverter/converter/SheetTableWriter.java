@@ -0,0 +1,94 @@
+package com.project.fileconverter.converter;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Font;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+
+/**
+ * Writes spreadsheet rows to a PDF as they are read, without holding a sheet in memory.
+ * <p>
+ * The first row of each sheet is treated as its header and repeated on every page.
+ * Rows are added to an incomplete {@link PdfPTable} that is flushed to the document every
+ * {@code rowsPerFlush} rows, after which the written rows are released. If a later row is
+ * wider than the current table, the table is closed and a wider one started.
+ */
+class SheetTableWriter {
+
+    private static final Font HEADING_FONT = new Font(Font.HELVETICA, 14, Font.BOLD);
+
+    private final Document document;
+    private final int rowsPerFlush;
+    private boolean firstSheet = true;
+    private List<String> header;
+    private PdfPTable table;
+    private int pendingRows;
+
+    SheetTableWriter(Document document, int rowsPerFlush) {
+        this.document = document;
+        this.rowsPerFlush = Math.max(1, rowsPerFlush);
+    }
+
+    void startSheet(String name) throws DocumentException {
+        if (!firstSheet) document.newPage();
+        firstSheet = false;
+        header = null;
+        table = null;
+        pendingRows = 0;
+        Paragraph heading = new Paragraph(name, HEADING_FONT);
+        heading.setSpacingAfter(8);
+        document.add(heading);
+    }
+
+    void addRow(List<String> cells) throws DocumentException, InterruptedIOException {
+        Cancellation.check("writing rows");
+        if (header == null) {
+            header = new ArrayList<>(cells);
+            startTable(Math.max(1, cells.size()));
+            return;
+        }
+        if (cells.size() > table.getNumberOfColumns()) {
+            finishTable();
+            startTable(cells.size());
+        }
+        addCells(cells);
+        if (++pendingRows >= rowsPerFlush) {
+            document.add(table);
+            pendingRows = 0;
+        }
+    }
+
+    void endSheet() throws DocumentException {
+        if (table != null) finishTable();
+        table = null;
+    }
+
+    private void startTable(int columns) {
+        table = new PdfPTable(columns);
+        table.setWidthPercentage(100);
+        table.setComplete(false);
+        table.setHeaderRows(1);
+        addCells(header);
+    }
+
+    private void finishTable() throws DocumentException {
+        table.setComplete(true);
+        document.add(table);
+        pendingRows = 0;
+    }
+
+    private void addCells(List<String> cells) {
+        int columns = table.getNumberOfColumns();
+        for (int cn = 0; cn < columns; cn++) {
+            String value = cn < cells.size() && cells.get(cn) != null ? cells.get(cn) : "";
+            table.addCell(new PdfPCell(new Phrase(value)));
+        }
+    }
+}
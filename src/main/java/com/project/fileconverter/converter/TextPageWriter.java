@@ -0,0 +1,186 @@
+package com.project.fileconverter.converter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+/**
+ * Lays out streamed plain text onto Letter pages.
+ * <p>
+ * Lines end at {@code \n}, {@code \r} or {@code \r\n}. They are wrapped by measured glyph
+ * width, preferring to break after a space, and a new page starts once the leading runs
+ * out. Text arrives in chunks and a line is never held whole: once more than
+ * {@link #MAX_PENDING} characters of it are buffered, its complete rows are laid out and
+ * only the unfinished row is kept. Each page's content stream is closed as soon as the
+ * page is full, so with a scratch-file backed {@link PDDocument} the heap holds only the
+ * page being written. Characters the font cannot encode are replaced with {@code ?}.
+ */
+class TextPageWriter implements Closeable {
+
+    private static final PDFont FONT = PDType1Font.HELVETICA;
+    private static final float FONT_SIZE = 12f;
+    private static final float LEADING = 14f;
+    private static final float MARGIN = 50f;
+    private static final PDRectangle PAGE_SIZE = PDRectangle.LETTER;
+    private static final float MAX_WIDTH = PAGE_SIZE.getWidth() - 2 * MARGIN;
+    /** Characters of an unfinished line buffered before its complete rows are laid out. */
+    static final int MAX_PENDING = 8192;
+
+    private final PDDocument doc;
+    private final Map<Character, Float> widths = new HashMap<>();
+    private final StringBuilder pending = new StringBuilder();
+    private boolean lineOpen;
+    private boolean afterCarriageReturn;
+    private PDPageContentStream content;
+    private float y;
+    private int pages;
+
+    TextPageWriter(PDDocument doc) {
+        this.doc = doc;
+    }
+
+    int getPageCount() {
+        return pages;
+    }
+
+    /**
+     * Lay out the next chunk of text.
+     */
+    void write(char[] text, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            char c = text[i];
+            boolean lf = c == '\n';
+            if (lf && afterCarriageReturn) {
+                afterCarriageReturn = false;
+                continue;
+            }
+            afterCarriageReturn = c == '\r';
+            if (lf || c == '\r') {
+                endLine();
+                continue;
+            }
+            lineOpen = true;
+            append(c);
+            if (pending.length() >= MAX_PENDING) writeRows(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (lineOpen) endLine();
+        if (pages == 0) startPage();
+        finishPage();
+    }
+
+    private void endLine() throws IOException {
+        if (pending.length() == 0) {
+            showLine("");
+        } else {
+            writeRows(true);
+        }
+        lineOpen = false;
+    }
+
+    /**
+     * Lay out the rows of the buffered line. Unless the line is complete, the last row is
+     * kept, as more characters may still join it.
+     */
+    private void writeRows(boolean complete) throws IOException {
+        int start = 0;
+        while (start < pending.length()) {
+            int end = fit(pending, start);
+            if (end < pending.length()) {
+                int space = pending.lastIndexOf(" ", end - 1);
+                if (space > start) end = space + 1;
+            } else if (!complete) {
+                break;
+            }
+            showLine(pending.substring(start, end));
+            start = end;
+        }
+        pending.delete(0, start);
+    }
+
+    /**
+     * @return the end index of the longest run from {@code start} that fits the line width,
+     *         always taking at least one character
+     */
+    private int fit(CharSequence line, int start) throws IOException {
+        float width = 0;
+        int i = start;
+        while (i < line.length()) {
+            width += charWidth(line.charAt(i));
+            if (width > MAX_WIDTH && i > start) break;
+            i++;
+        }
+        return i;
+    }
+
+    private void showLine(String text) throws IOException {
+        if (content == null || y < MARGIN) startPage();
+        if (!text.isEmpty()) content.showText(text);
+        content.newLineAtOffset(0, -LEADING);
+        y -= LEADING;
+    }
+
+    private void startPage() throws IOException {
+        finishPage();
+        PDPage page = new PDPage(PAGE_SIZE);
+        doc.addPage(page);
+        pages++;
+        y = PAGE_SIZE.getHeight() - MARGIN - FONT_SIZE;
+        content = new PDPageContentStream(doc, page);
+        content.beginText();
+        content.setFont(FONT, FONT_SIZE);
+        content.newLineAtOffset(MARGIN, y);
+    }
+
+    private void finishPage() throws IOException {
+        if (content == null) return;
+        content.endText();
+        content.close();
+        content = null;
+    }
+
+    /**
+     * Buffer one character of the current line, expanding tabs and replacing characters
+     * the font cannot encode.
+     */
+    private void append(char c) throws IOException {
+        if (c == '\t') {
+            pending.append("    ");
+        } else if (charWidth(c) >= 0) {
+            pending.append(c);
+        } else if (!Character.isISOControl(c)) {
+            pending.append('?');
+        }
+    }
+
+    /**
+     * Width of a character in text space, or -1 if the font cannot encode it.
+     */
+    private float charWidth(char c) throws IOException {
+        Float cached = widths.get(c);
+        if (cached != null) return cached;
+        float width;
+        if (Character.isISOControl(c)) {
+            width = -1;
+        } else {
+            try {
+                width = FONT.getStringWidth(String.valueOf(c)) / 1000 * FONT_SIZE;
+            } catch (IllegalArgumentException e) {
+                width = -1;
+            }
+        }
+        widths.put(c, width);
+        return width;
+    }
+}
@@ -1,59 +1,209 @@
 package com.project.fileconverter.converter;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
+/**
+ * Plain text to PDF converter. The source is read in fixed-size chunks of characters and
+ * laid out by {@link TextPageWriter}, which wraps long lines as they stream, so neither a
+ * page nor a line needs to fit on the heap at once; the document keeps at most {@code conversion.text.max-main-memory}
+ * of page content on the heap and spills the rest to a scratch file, so multi-GB logs
+ * convert with constant heap. That heap is reserved from the shared {@link PdfOutputFactory}
+ * budget.
+ * <p>
+ * Inputs of at least {@code conversion.text.parallel-threshold} are split at line
+ * boundaries into chunks that are rendered to partial PDFs on the {@link RenderPool}
+ * and merged in order. Each chunk starts on a fresh page.
+ */
 @Component
 public class TextPdfConverter implements PdfConverter {
 
+    // Catch-all for text/*; exact types such as text/html belong to their own converters
+    private static final ConverterCapabilities CAPABILITIES = new ConverterCapabilities(
+            Set.of("text/*"),
+            Set.of("txt", "csv", "log"),
+            -10);
+
+    /** How far past a split point to map while looking for the next line break. */
+    private static final int SCAN_WINDOW = 1 << 20;
+    /** Characters decoded and handed to the page writer at a time. */
+    private static final int READ_CHARS = 64 * 1024;
+
+    private final RenderPool renderPool;
+    private final PdfOutputFactory outputs;
+    private final long maxMainMemory;
+    private final long parallelThreshold;
+    private final int chunks;
+
+    public TextPdfConverter(RenderPool renderPool,
+                            PdfOutputFactory outputs,
+                            @Value("${conversion.text.max-main-memory:16MB}") DataSize maxMainMemory,
+                            @Value("${conversion.text.parallel-threshold:64MB}") DataSize parallelThreshold,
+                            @Value("${conversion.text.chunks:0}") int chunks) {
+        this.renderPool = renderPool;
+        this.outputs = outputs;
+        this.maxMainMemory = maxMainMemory.toBytes();
+        this.parallelThreshold = parallelThreshold.toBytes();
+        this.chunks = chunks > 0 ? chunks : renderPool.getParallelism();
+    }
+
     @Override
     public void convert(File source, File dest) throws IOException {
-        String text = Files.readString(source.toPath());
-        try (PDDocument doc = new PDDocument()) {
-            PDPage page = new PDPage();
-            doc.addPage(page);
-            try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
-                content.beginText();
-                content.setFont(PDType1Font.HELVETICA, 12);
-                content.newLineAtOffset(50, 700);
-                BufferedReader reader = new BufferedReader(new StringReader(text));
-                String line;
-                float leading = 14f;
-                while ((line = reader.readLine()) != null) {
-                    if (line.length() == 0) {
-                        content.newLineAtOffset(0, -leading);
-                        continue;
-                    }
-                    // naive wrap at 90 chars
-                    int max = 90;
-                    for (int start = 0; start < line.length(); start += max) {
-                        int end = Math.min(line.length(), start + max);
-                        content.showText(line.substring(start, end));
-                        content.newLineAtOffset(0, -leading);
+        if (chunks > 1 && source.length() >= parallelThreshold) {
+            convertInChunks(source, dest);
+            return;
+        }
+        try (InputStream in = Files.newInputStream(source.toPath());
+             PdfOutputFactory.PdfOutput output = outputs.open(maxMainMemory);
+             PDDocument doc = output.newDocument()) {
+            render(in, doc);
+            doc.save(dest);
+        }
+    }
+
+    private void convertInChunks(File source, File dest) throws IOException {
+        List<Long> bounds = splitAtLines(source.toPath(), chunks);
+        List<File> parts = new ArrayList<>();
+        List<Future<?>> pending = new ArrayList<>();
+        // set once the parts are no longer wanted; a chunk still rendering then removes its own
+        AtomicBoolean abandoned = new AtomicBoolean();
+        try {
+            for (int i = 0; i + 1 < bounds.size(); i++) {
+                File part = new File(dest.getAbsoluteFile().getParentFile(), dest.getName() + ".chunk" + i);
+                parts.add(part);
+                long start = bounds.get(i);
+                long length = bounds.get(i + 1) - start;
+                pending.add(renderPool.submit(() -> {
+                    try {
+                        renderChunk(source, start, length, part);
+                    } finally {
+                        if (abandoned.get()) Files.deleteIfExists(part.toPath());
                     }
-                }
-                content.endText();
+                    return null;
+                }));
+            }
+            for (Future<?> f : pending) {
+                f.get();
+            }
+
+            PDFMergerUtility merger = new PDFMergerUtility();
+            for (File part : parts) {
+                merger.addSource(part);
+            }
+            merger.setDestinationFileName(dest.getAbsolutePath());
+            merger.mergeDocuments(MemoryUsageSetting.setupTempFileOnly());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rendering text chunks");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+                    : new IOException("Text chunk rendering failed", e.getCause());
+        } finally {
+            // cancelling does not wait for chunks already running; they clean up after themselves
+            abandoned.set(true);
+            pending.forEach(f -> f.cancel(true));
+            for (File part : parts) {
+                Files.deleteIfExists(part.toPath());
             }
-            doc.save(dest);
         }
     }
 
-    @Override
-    public boolean supports(String mimeType, String filename) {
-        if (mimeType != null && mimeType.startsWith("text/")) return true;
-        if (filename != null) {
-            String lower = filename.toLowerCase();
-            return lower.endsWith(".txt") || lower.endsWith(".csv") || lower.endsWith(".log");
+    private void renderChunk(File source, long start, long length, File part) throws IOException {
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             InputStream in = new BoundedInputStream(Channels.newInputStream(channel.position(start)), length);
+             PdfOutputFactory.PdfOutput output = outputs.open(maxMainMemory);
+             PDDocument doc = output.newDocument()) {
+            render(in, doc);
+            doc.save(part);
         }
-        return false;
+    }
+
+    /**
+     * Split the file into at most {@code parts} byte ranges that each end on a line break.
+     * Only a small window after each nominal split point is mapped and scanned.
+     * @return ascending offsets, starting with 0 and ending with the file size
+     */
+    static List<Long> splitAtLines(Path path, int parts) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (int i = 1; i < parts; i++) {
+                long from = Math.max(size * i / parts, bounds.get(bounds.size() - 1));
+                long cut = nextLineStart(channel, from, size);
+                if (cut > bounds.get(bounds.size() - 1) && cut < size) bounds.add(cut);
+            }
+            bounds.add(size);
+        }
+        return bounds;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        long pos = from;
+        while (pos < size) {
+            long len = Math.min(SCAN_WINDOW, size - pos);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+            for (int i = 0; i < len; i++) {
+                if (window.get(i) == '\n') return pos + i + 1;
+            }
+            pos += len;
+        }
+        return size;
+    }
+
+    /**
+     * Lay out UTF-8 text from {@code in} onto pages of {@code doc}. Malformed bytes are
+     * replaced rather than failing the conversion.
+     */
+    void render(InputStream in, PDDocument doc) throws IOException {
+        var decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try (Reader reader = new InputStreamReader(in, decoder);
+             TextPageWriter writer = new TextPageWriter(doc)) {
+            char[] buf = new char[READ_CHARS];
+            int n;
+            while ((n = reader.read(buf)) != -1) {
+                Cancellation.check("rendering text");
+                writer.write(buf, 0, n);
+            }
+        }
+    }
+
+    @Override
+    public String version() {
+        // 2: paginated output wrapped by glyph width
+        return "2";
+    }
+
+    @Override
+    public ConverterCapabilities capabilities() {
+        return CAPABILITIES;
     }
 }
@@ -1,63 +1,284 @@
 package com.project.fileconverter.converter;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.beans.factory.annotation.Value;
 import com.lowagie.text.Document;
 import com.lowagie.text.DocumentException;
 import com.lowagie.text.pdf.PdfWriter;
-import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfPCell;
-import com.lowagie.text.Phrase;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.springframework.stereotype.Component;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
 
+/**
+ * XLSX/XLS to PDF converter built on POI's streaming event APIs: SAX over the sheet XML
+ * for .xlsx and {@link HSSFEventFactory} records for .xls. Every sheet is converted, and
+ * rows go straight to a {@link SheetTableWriter}, so memory stays flat with row count.
+ */
 @Component
 public class XlsxPdfConverter implements PdfConverter {
+
+    private static final ConverterCapabilities CAPABILITIES = new ConverterCapabilities(
+            Set.of("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "application/vnd.ms-excel"),
+            Set.of("xlsx", "xls"),
+            CostUnit.ROWS);
+
+    private final int rowsPerFlush;
+
+    public XlsxPdfConverter(@Value("${conversion.xlsx.rows-per-flush:50}") int rowsPerFlush) {
+        this.rowsPerFlush = rowsPerFlush;
+    }
+
     @Override
     public void convert(File source, File dest) throws IOException {
-        try (InputStream input_document = Files.newInputStream(source.toPath())) {
-            Workbook workbook = WorkbookFactory.create(input_document);
-            Sheet sheet = workbook.getSheetAt(0);
-            // Determine max columns
-            int maxCols = 0;
-            for (Row row : sheet) {
-                if (row.getLastCellNum() > maxCols) maxCols = row.getLastCellNum();
-            }
+        try (OutputStream out = new FileOutputStream(dest)) {
             Document pdfDoc = new Document();
-            PdfWriter.getInstance(pdfDoc, new java.io.FileOutputStream(dest));
+            PdfWriter.getInstance(pdfDoc, out);
             pdfDoc.open();
-            PdfPTable table = new PdfPTable(maxCols > 0 ? maxCols : 1);
-            for (Row row : sheet) {
-                for (int cn = 0; cn < maxCols; cn++) {
-                    Cell cell = row.getCell(cn);
-                    String value = (cell == null) ? "" : cell.toString();
-                    table.addCell(new PdfPCell(new Phrase(value)));
-                }
+            SheetTableWriter writer = new SheetTableWriter(pdfDoc, rowsPerFlush);
+            if (isOle2(source)) {
+                convertXls(source, writer);
+            } else {
+                convertXlsx(source, writer);
             }
-            pdfDoc.add(table);
             pdfDoc.close();
-        } catch (IOException | DocumentException e) {
-            throw new RuntimeException("Error converting Excel to PDF", e);
+        } catch (SheetWriteException e) {
+            if (e.getCause() instanceof InterruptedIOException) throw (InterruptedIOException) e.getCause();
+            throw new IOException("Error converting Excel to PDF", e.getCause());
+        } catch (IOException e) {
+            throw new IOException("Error converting Excel to PDF", e);
+        } catch (Exception e) {
+            throw new IOException("Error converting Excel to PDF: " + e.getMessage(), e);
         }
     }
 
-    @Override
-    public boolean supports(String mimeType, String filename) {
-        if (mimeType != null) {
-            if (mimeType.equals("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-                    || mimeType.equals("application/vnd.ms-excel")) return true;
+    private boolean isOle2(File source) throws IOException {
+        try (InputStream in = FileMagic.prepareToCheckMagic(Files.newInputStream(source.toPath()))) {
+            return FileMagic.valueOf(in) == FileMagic.OLE2;
+        }
+    }
+
+    private void convertXlsx(File source, SheetTableWriter writer) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(source, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            DataFormatter formatter = new DataFormatter();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    writer.startSheet(sheets.getSheetName());
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, strings, new XlsxRowHandler(writer), formatter, false));
+                    parser.parse(new InputSource(sheet));
+                    writer.endSheet();
+                }
+            }
+        }
+    }
+
+    private void convertXls(File source, SheetTableWriter writer) throws IOException {
+        try (POIFSFileSystem fs = new POIFSFileSystem(source, true)) {
+            XlsRecordListener listener = new XlsRecordListener(writer);
+            FormatTrackingHSSFListener formats = new FormatTrackingHSSFListener(new MissingRecordAwareHSSFListener(listener));
+            listener.formats = formats;
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(formats);
+            new HSSFEventFactory().processWorkbookEvents(request, fs);
+        }
+    }
+
+    /**
+     * Collects SAX cell events of one .xlsx row, filling gaps left by blank cells.
+     */
+    private static class XlsxRowHandler implements SheetContentsHandler {
+        private final SheetTableWriter writer;
+        private final List<String> row = new ArrayList<>();
+
+        XlsxRowHandler(SheetTableWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            row.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            try {
+                writer.addRow(row);
+            } catch (DocumentException | InterruptedIOException e) {
+                throw new SheetWriteException(e);
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = cellReference != null ? new CellReference(cellReference).getCol() : row.size();
+            while (row.size() < col) row.add("");
+            row.add(formattedValue);
+        }
+    }
+
+    /**
+     * Turns the .xls record stream into rows. Sheet names arrive up front in the
+     * workbook globals; cell records for a sheet follow its BOF record.
+     */
+    private static class XlsRecordListener implements HSSFListener {
+        private final SheetTableWriter writer;
+        private final List<String> sheetNames = new ArrayList<>();
+        private final List<String> row = new ArrayList<>();
+        private FormatTrackingHSSFListener formats;
+        private SSTRecord strings;
+        private int sheetIndex = -1;
+        private boolean inSheet;
+        private int pendingStringColumn = -1;
+
+        XlsRecordListener(SheetTableWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void processRecord(Record record) {
+            try {
+                handle(record);
+            } catch (DocumentException | InterruptedIOException e) {
+                throw new SheetWriteException(e);
+            }
+        }
+
+        private void handle(Record record) throws DocumentException, InterruptedIOException {
+            switch (record.getSid()) {
+                case BoundSheetRecord.sid:
+                    sheetNames.add(((BoundSheetRecord) record).getSheetname());
+                    break;
+                case BOFRecord.sid:
+                    if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+                        sheetIndex++;
+                        inSheet = true;
+                        row.clear();
+                        writer.startSheet(sheetIndex < sheetNames.size() ? sheetNames.get(sheetIndex) : "Sheet" + (sheetIndex + 1));
+                    }
+                    break;
+                case EOFRecord.sid:
+                    if (inSheet) {
+                        writer.endSheet();
+                        inSheet = false;
+                    }
+                    break;
+                case SSTRecord.sid:
+                    strings = (SSTRecord) record;
+                    break;
+                case LabelSSTRecord.sid:
+                    LabelSSTRecord label = (LabelSSTRecord) record;
+                    put(label.getColumn(), strings != null ? strings.getString(label.getSSTIndex()).toString() : "");
+                    break;
+                case LabelRecord.sid:
+                    LabelRecord plain = (LabelRecord) record;
+                    put(plain.getColumn(), plain.getValue());
+                    break;
+                case NumberRecord.sid:
+                    NumberRecord number = (NumberRecord) record;
+                    put(number.getColumn(), formats.formatNumberDateCell(number));
+                    break;
+                case FormulaRecord.sid:
+                    FormulaRecord formula = (FormulaRecord) record;
+                    if (formula.hasCachedResultString()) {
+                        // The cached text follows in a StringRecord
+                        pendingStringColumn = formula.getColumn();
+                    } else {
+                        put(formula.getColumn(), formats.formatNumberDateCell(formula));
+                    }
+                    break;
+                case StringRecord.sid:
+                    if (pendingStringColumn >= 0) {
+                        put(pendingStringColumn, ((StringRecord) record).getString());
+                        pendingStringColumn = -1;
+                    }
+                    break;
+                case BoolErrRecord.sid:
+                    BoolErrRecord boolErr = (BoolErrRecord) record;
+                    put(boolErr.getColumn(), boolErr.isBoolean() ? String.valueOf(boolErr.getBooleanValue()) : "#ERR");
+                    break;
+                case BlankRecord.sid:
+                    put(((BlankRecord) record).getColumn(), "");
+                    break;
+                default:
+                    if (record instanceof LastCellOfRowDummyRecord && inSheet) {
+                        writer.addRow(row);
+                        row.clear();
+                    }
+            }
+        }
+
+        private void put(int column, String value) {
+            while (row.size() < column) row.add("");
+            if (row.size() == column) {
+                row.add(value);
+            } else {
+                row.set(column, value);
+            }
         }
-        if (filename != null) {
-            String lower = filename.toLowerCase();
-            return lower.endsWith(".xlsx") || lower.endsWith(".xls");
+    }
+
+    /**
+     * Carries PDF write failures out of POI's callback interfaces.
+     */
+    private static class SheetWriteException extends RuntimeException {
+        SheetWriteException(Exception cause) {
+            super(cause);
         }
-        return false;
+    }
+
+    @Override
+    public String version() {
+        // 2: all sheets with repeated headers instead of only the first sheet
+        return "2";
+    }
+
+    @Override
+    public ConverterCapabilities capabilities() {
+        return CAPABILITIES;
     }
 }
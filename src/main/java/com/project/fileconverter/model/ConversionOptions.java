@@ -0,0 +1,20 @@
+package com.project.fileconverter.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Per-request conversion settings. Unset fields fall back to the converter's configured defaults.
+ */
+@Value
+@Builder
+public class ConversionOptions {
+
+    private static final ConversionOptions DEFAULTS = ConversionOptions.builder().build();
+
+    SlideRenderMode slideRenderMode;
+
+    public static ConversionOptions defaults() {
+        return DEFAULTS;
+    }
+}
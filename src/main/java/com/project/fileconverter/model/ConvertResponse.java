@@ -7,6 +7,8 @@ import lombok.Value;
 @Builder
 public class ConvertResponse {
     String id;
+    JobStatus status;
+    String statusUrl;
     String viewUrl;
     String downloadUrl;
     String originalFilename;
@@ -0,0 +1,21 @@
+package com.project.fileconverter.model;
+
+import java.time.Instant;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class JobResponse {
+    String id;
+    JobStatus status;
+    String originalFilename;
+    String contentType;
+    String viewUrl;
+    String downloadUrl;
+    String error;
+    Instant submittedAt;
+    Instant startedAt;
+    Instant finishedAt;
+}
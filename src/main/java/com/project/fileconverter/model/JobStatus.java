@@ -0,0 +1,9 @@
+package com.project.fileconverter.model;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED
+}
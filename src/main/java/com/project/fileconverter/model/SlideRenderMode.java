@@ -0,0 +1,11 @@
+package com.project.fileconverter.model;
+
+/**
+ * How presentation slides are written to PDF.
+ */
+public enum SlideRenderMode {
+    /** Each slide is drawn into a bitmap and embedded as an image. */
+    RASTER,
+    /** Slides are drawn as PDF vector graphics with selectable text. */
+    VECTOR
+}
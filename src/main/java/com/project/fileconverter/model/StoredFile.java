@@ -10,4 +10,6 @@ public class StoredFile {
     String contentType;
     Path originalPath;
     Path pdfPath;
+    /** SHA-256 of the uploaded content, hex encoded. */
+    String hash;
 }
@@ -0,0 +1,15 @@
+package com.project.fileconverter.model;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class SupportedFormat {
+    String converter;
+    List<String> mimeTypes;
+    List<String> extensions;
+    int priority;
+}
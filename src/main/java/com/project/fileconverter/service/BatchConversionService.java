@@ -0,0 +1,246 @@
+package com.project.fileconverter.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.input.CountingInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.project.fileconverter.model.ConversionOptions;
+import com.project.fileconverter.model.JobStatus;
+import com.project.fileconverter.model.StoredFile;
+
+/**
+ * Converts many files in one request and streams the PDFs back as a ZIP.
+ * <p>
+ * Uploaded ZIP archives are expanded into individual files. Conversions run on the
+ * regular job queue with a bounded number in flight, and each PDF is written to the
+ * response archive as soon as its job finishes, so neither the inputs nor the output
+ * archive are ever held in memory. The archive ends with {@code manifest.csv}, listing
+ * every input with its status, archive entry, job id and error.
+ */
+@Service
+public class BatchConversionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchConversionService.class);
+
+    static final String MANIFEST = "manifest.csv";
+
+    private final ConverterService converterService;
+    private final ConversionJobService jobService;
+    private final int maxFiles;
+    private final long maxExpandedSize;
+    private final int inFlight;
+
+    /**
+     * One input of a batch and, once known, its outcome.
+     */
+    public static final class Item {
+        private final String name;
+        private final StoredFile stored;
+        private ConversionJob job;
+        private String entry;
+        private String error;
+
+        Item(String name, StoredFile stored) {
+            this.name = name;
+            this.stored = stored;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public BatchConversionService(ConverterService converterService,
+                                  ConversionJobService jobService,
+                                  @Value("${conversion.batch.max-files:500}") int maxFiles,
+                                  @Value("${conversion.batch.max-expanded-size:2GB}") DataSize maxExpandedSize,
+                                  @Value("${conversion.batch.in-flight:0}") int inFlight) {
+        this.converterService = converterService;
+        this.jobService = jobService;
+        this.maxFiles = maxFiles;
+        this.maxExpandedSize = maxExpandedSize.toBytes();
+        this.inFlight = inFlight > 0 ? inFlight : jobService.getWorkerCount();
+    }
+
+    /**
+     * Store every upload, expanding ZIP archives into their files.
+     * @throws BatchLimitExceededException if the batch is too large; nothing is kept
+     */
+    public List<Item> store(List<MultipartFile> files) throws IOException {
+        List<Item> items = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                if (file.isEmpty()) continue;
+                if (isZip(file)) {
+                    expand(file, items);
+                } else {
+                    checkCount(items);
+                    items.add(new Item(file.getOriginalFilename(), converterService.store(file)));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            items.forEach(item -> converterService.discard(item.stored));
+            throw e;
+        }
+        return items;
+    }
+
+    private void expand(MultipartFile archive, List<Item> items) throws IOException {
+        long remaining = maxExpandedSize;
+        try (ZipInputStream zip = new ZipInputStream(archive.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                // Only the base name is used, and never as a path, so entries cannot escape storage
+                String name = FilenameUtils.getName(entry.getName());
+                if (entry.isDirectory() || name.isEmpty() || name.startsWith(".") || entry.getName().startsWith("__MACOSX/")) {
+                    continue;
+                }
+                checkCount(items);
+                CountingInputStream counted = new CountingInputStream(new BoundedInputStream(zip, remaining + 1));
+                Item item = new Item(name, converterService.store(counted, name));
+                items.add(item);
+                remaining -= counted.getByteCount();
+                if (remaining < 0) {
+                    throw new BatchLimitExceededException("Archive expands to more than " + maxExpandedSize + " bytes");
+                }
+            }
+        }
+    }
+
+    private void checkCount(List<Item> items) {
+        if (items.size() >= maxFiles) {
+            throw new BatchLimitExceededException("A batch may contain at most " + maxFiles + " files");
+        }
+    }
+
+    /**
+     * Convert the stored items and write the ZIP of results to {@code out} as they finish.
+     */
+    public void convert(List<Item> items, ConversionOptions options, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PDFs are mostly compressed streams already
+        zip.setLevel(Deflater.BEST_SPEED);
+        Deque<Item> pending = new ArrayDeque<>(items);
+        BlockingQueue<Item> finished = new LinkedBlockingQueue<>();
+        Set<String> entryNames = new HashSet<>();
+        int running = 0;
+        boolean complete = false;
+        try {
+            while (!pending.isEmpty() || running > 0) {
+                while (!pending.isEmpty() && running < inFlight) {
+                    Item item = pending.peek();
+                    try {
+                        item.job = jobService.submit(item.stored, options);
+                    } catch (ConversionQueueFullException e) {
+                        if (running > 0) break;
+                        // nothing of ours to wait for; give other clients' jobs time to drain
+                        Thread.sleep(e.getRetryAfterSeconds() * 1000);
+                        continue;
+                    } catch (IOException e) {
+                        item.error = e.getMessage();
+                    }
+                    pending.poll();
+                    if (item.job == null) continue;
+                    running++;
+                    item.job.whenFinished().thenRun(() -> finished.add(item));
+                }
+                if (running == 0) continue;
+                Item done = finished.take();
+                running--;
+                writeResult(zip, done, entryNames);
+            }
+            writeManifest(zip, items);
+            zip.finish();
+            zip.flush();
+            complete = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while streaming batch results");
+        } finally {
+            if (!complete) {
+                // the client went away or the stream failed; nobody will read the rest
+                items.stream().filter(item -> item.job != null).forEach(item -> jobService.cancel(item.job));
+            }
+        }
+    }
+
+    private void writeResult(ZipOutputStream zip, Item item, Set<String> entryNames) throws IOException {
+        ConversionJob job = item.job;
+        if (job.getStatus() != JobStatus.COMPLETED) {
+            item.error = job.getError();
+            return;
+        }
+        String entry = uniqueName(FilenameUtils.getBaseName(item.name) + ".pdf", entryNames);
+        zip.putNextEntry(new ZipEntry(entry));
+        Files.copy(item.stored.getPdfPath(), zip);
+        zip.closeEntry();
+        // push the finished entry to the client instead of waiting for the buffer to fill
+        zip.flush();
+        item.entry = entry;
+        log.debug("Batch entry {} written for job {}", entry, job.getId());
+    }
+
+    private void writeManifest(ZipOutputStream zip, List<Item> items) throws IOException {
+        zip.putNextEntry(new ZipEntry(MANIFEST));
+        Writer csv = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+        csv.write("file,status,entry,id,error\n");
+        for (Item item : items) {
+            String status = item.job != null ? item.job.getStatus().name() : JobStatus.FAILED.name();
+            csv.write(String.join(",", csv(item.name), status, csv(item.entry),
+                    csv(item.job != null ? item.job.getId() : null), csv(item.error)));
+            csv.write("\n");
+        }
+        csv.flush();
+        zip.closeEntry();
+    }
+
+    private static String uniqueName(String name, Set<String> used) {
+        String candidate = name;
+        for (int n = 2; !used.add(candidate); n++) {
+            candidate = FilenameUtils.getBaseName(name) + " (" + n + ")." + FilenameUtils.getExtension(name);
+        }
+        return candidate;
+    }
+
+    private static String csv(String value) {
+        if (value == null) return "";
+        boolean quote = value.chars().anyMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r');
+        return quote ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+    }
+
+    /**
+     * Only archives named or declared as ZIP are expanded; OOXML documents are ZIPs too.
+     */
+    private static boolean isZip(MultipartFile file) {
+        String name = file.getOriginalFilename();
+        String type = file.getContentType();
+        return (name != null && name.toLowerCase().endsWith(".zip"))
+                || "application/zip".equals(type) || "application/x-zip-compressed".equals(type);
+    }
+}
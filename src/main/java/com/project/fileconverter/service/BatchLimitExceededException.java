@@ -0,0 +1,11 @@
+package com.project.fileconverter.service;
+
+/**
+ * Thrown when a batch upload has more files, or expands to more bytes, than allowed.
+ */
+public class BatchLimitExceededException extends RuntimeException {
+
+    public BatchLimitExceededException(String message) {
+        super(message);
+    }
+}
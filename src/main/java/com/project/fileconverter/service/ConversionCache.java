@@ -0,0 +1,249 @@
+package com.project.fileconverter.service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Content-addressed store for uploads and their PDFs, kept in {@code storageDir/cas}.
+ * <p>
+ * Blobs are named after the SHA-256 of the upload ({@code <hash>.src}) and, for PDFs,
+ * the converter and its version ({@code <hash>-<converter>.pdf}), so the directory itself
+ * is the index. Blobs are sharded by the first two hex digits of the hash. Per-upload files
+ * are hard links to these blobs; the link count is the reference count, and a blob whose
+ * count drops to one is no longer used by any upload. Where hard links are not supported,
+ * files are copied instead.
+ * <p>
+ * Callers record the blobs each upload links to in the {@link StorageIndex}, and cleanup
+ * checks only the blobs released by removed entries. A full walk is left for recovering
+ * blobs whose release was lost, e.g. by a restart.
+ * <p>
+ * The size of all blobs is counted as they are created and deleted. It starts from zero
+ * and is set to the measured total by each {@link #pruneAll}, which cleanup runs once
+ * after startup.
+ */
+@Component
+public class ConversionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversionCache.class);
+
+    private final Path cacheDir;
+    /** Released blobs kept by age, where link counts cannot be read; checked again later. */
+    private final Set<Path> agingCandidates = ConcurrentHashMap.newKeySet();
+    private final AtomicLong blobBytes = new AtomicLong();
+
+    public ConversionCache(@Value("${file.storage.location:storage}") String storageLocation) throws IOException {
+        this.cacheDir = Paths.get(storageLocation).toAbsolutePath().resolve("cas");
+        Files.createDirectories(this.cacheDir);
+    }
+
+    public Path getCacheDir() {
+        return cacheDir;
+    }
+
+    /**
+     * Bytes held by cache blobs.
+     */
+    public long getBlobBytes() {
+        return blobBytes.get();
+    }
+
+    /**
+     * Move a freshly written upload to {@code target}, sharing storage with an earlier
+     * upload of the same content when there is one.
+     * @return the blob {@code target} is linked to, or null if it is not cached
+     */
+    public Path internSource(String hash, Path upload, Path target) throws IOException {
+        Path blob = shard(hash).resolve(hash + ".src");
+        if (Files.exists(blob)) {
+            Files.delete(upload);
+            linkOrCopy(blob, target);
+            touch(blob);
+            return blob;
+        }
+        Files.move(upload, target, StandardCopyOption.ATOMIC_MOVE);
+        try {
+            Files.createLink(blob, target);
+            blobBytes.addAndGet(Files.size(blob));
+            return blob;
+        } catch (FileAlreadyExistsException e) {
+            // another upload of the same content won the race; keep our own copy
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("Not caching source {}: {}", hash, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Link a previously converted PDF to {@code pdfPath}.
+     * @return the blob linked, or null if nothing is cached for this content and converter
+     */
+    public Path linkCachedPdf(String hash, String converterKey, Path pdfPath) throws IOException {
+        Path blob = pdfBlob(hash, converterKey);
+        if (!Files.exists(blob)) return null;
+        try {
+            linkOrCopy(blob, pdfPath);
+        } catch (IOException e) {
+            // pruned between the check and the link
+            log.debug("Cached PDF {} disappeared: {}", blob.getFileName(), e.getMessage());
+            return null;
+        }
+        touch(blob);
+        return blob;
+    }
+
+    /**
+     * Record a finished conversion so later uploads of the same content can reuse it.
+     * @return the blob {@code pdfPath} is now linked to, or null if it is not cached
+     */
+    public Path publishPdf(String hash, String converterKey, Path pdfPath) {
+        try {
+            Path blob = pdfBlob(hash, converterKey);
+            Files.createLink(blob, pdfPath);
+            blobBytes.addAndGet(Files.size(blob));
+            return blob;
+        } catch (FileAlreadyExistsException e) {
+            // already cached by a concurrent conversion
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("Not caching PDF for {}: {}", hash, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Share {@code source} as {@code target}, falling back to a copy.
+     */
+    public void linkOrCopy(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source, target);
+        }
+    }
+
+    /**
+     * Delete those of {@code candidates} that no upload links to any more, or that are
+     * older than {@code cutoff} when link counts cannot be read. Candidates kept only
+     * because they are too young are checked again on later calls.
+     */
+    public void prune(Collection<Path> candidates, Instant cutoff) {
+        agingCandidates.addAll(candidates);
+        for (Path blob : agingCandidates) {
+            try {
+                if (!Files.exists(blob)) {
+                    agingCandidates.remove(blob);
+                } else if (isUnreferenced(blob, cutoff)) {
+                    delete(blob);
+                    agingCandidates.remove(blob);
+                    log.info("Deleted unreferenced cache entry {}", blob.getFileName());
+                } else if (hasLinkCount(blob)) {
+                    // still linked; released again when its last upload is removed
+                    agingCandidates.remove(blob);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to check/delete {}: {}", blob, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Walk every shard and delete unreferenced blobs, including those whose release was
+     * never recorded. Costs a listing of the whole cache.
+     */
+    public void pruneAll(Instant cutoff) {
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(cacheDir, Files::isDirectory)) {
+            long kept = 0;
+            for (Path shard : shards) {
+                kept += pruneShard(shard, cutoff);
+            }
+            blobBytes.set(kept);
+        } catch (IOException e) {
+            log.warn("Cache cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return bytes of the blobs kept in {@code shard}
+     */
+    private long pruneShard(Path shard, Instant cutoff) {
+        long kept = 0;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(shard)) {
+            for (Path p : ds) {
+                try {
+                    if (isUnreferenced(p, cutoff)) {
+                        Files.deleteIfExists(p);
+                        log.info("Deleted unreferenced cache entry {}", p.getFileName());
+                    } else {
+                        kept += Files.size(p);
+                    }
+                } catch (IOException ex) {
+                    log.warn("Failed to check/delete {}: {}", p, ex.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Cache cleanup failed for {}: {}", shard.getFileName(), e.getMessage());
+        }
+        return kept;
+    }
+
+    private void delete(Path blob) throws IOException {
+        long size = Files.size(blob);
+        if (Files.deleteIfExists(blob)) blobBytes.addAndGet(-size);
+    }
+
+    private static boolean hasLinkCount(Path blob) throws IOException {
+        try {
+            Files.getAttribute(blob, "unix:nlink");
+            return true;
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private boolean isUnreferenced(Path blob, Instant cutoff) throws IOException {
+        try {
+            return ((Number) Files.getAttribute(blob, "unix:nlink")).intValue() <= 1;
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            return Files.getLastModifiedTime(blob).toInstant().isBefore(cutoff);
+        }
+    }
+
+    private Path pdfBlob(String hash, String converterKey) throws IOException {
+        return shard(hash).resolve(hash + "-" + converterKey + ".pdf");
+    }
+
+    private Path shard(String hash) throws IOException {
+        Path dir = cacheDir.resolve(hash.length() >= 2 ? hash.substring(0, 2) : "_");
+        Files.createDirectories(dir);
+        return dir;
+    }
+
+    /**
+     * Refresh the blob's modification time. Hard links share it, so every upload still
+     * pointing at the blob survives retention-based cleanup as long as it is being reused.
+     */
+    private void touch(Path blob) {
+        try {
+            Files.setLastModifiedTime(blob, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            log.debug("Failed to touch {}: {}", blob.getFileName(), e.getMessage());
+        }
+    }
+}
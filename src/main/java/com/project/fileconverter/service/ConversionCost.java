@@ -0,0 +1,22 @@
+package com.project.fileconverter.service;
+
+import com.project.fileconverter.converter.CostUnit;
+
+/**
+ * Predicted work of one conversion, from {@link CostEstimator}.
+ * @param converter converter name the prediction is for
+ * @param unit what {@code units} counts
+ * @param units amount of work
+ * @param seconds predicted run time
+ */
+public record ConversionCost(String converter, CostUnit unit, long units, double seconds) {
+
+    /** Cost of work that needs no conversion, e.g. an upload that is already PDF. */
+    static ConversionCost none(String format) {
+        return new ConversionCost(format, CostUnit.KIB, 0, 0);
+    }
+
+    long millis() {
+        return Math.round(seconds * 1000);
+    }
+}
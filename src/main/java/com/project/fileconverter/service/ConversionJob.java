@@ -0,0 +1,151 @@
+package com.project.fileconverter.service;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import com.project.fileconverter.model.ConversionOptions;
+import com.project.fileconverter.model.JobStatus;
+import com.project.fileconverter.model.StoredFile;
+
+/**
+ * A conversion queued on {@link ConversionJobService}. Status fields are written by the
+ * worker thread and read by request threads polling the job API.
+ * <p>
+ * A job can be aborted (cancelled, or failed on its deadline) from any thread. Aborting
+ * finishes it at once and interrupts the thread running its conversion, if any; later
+ * completion or failure reported by that thread is ignored.
+ */
+public class ConversionJob {
+
+    private final StoredFile storedFile;
+    private final String format;
+    private final ConversionOptions options;
+    private final ConversionCost cost;
+    private final Instant submittedAt = Instant.now();
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private boolean aborted;
+    private Thread runner;
+    private final CompletableFuture<ConversionJob> finished = new CompletableFuture<>();
+
+    ConversionJob(StoredFile storedFile, String format, ConversionOptions options) {
+        this(storedFile, format, options, ConversionCost.none(format));
+    }
+
+    ConversionJob(StoredFile storedFile, String format, ConversionOptions options, ConversionCost cost) {
+        this.storedFile = storedFile;
+        this.format = format;
+        this.options = options;
+        this.cost = cost;
+    }
+
+    public String getId() {
+        return storedFile.getId();
+    }
+
+    public StoredFile getStoredFile() {
+        return storedFile;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public ConversionOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Predicted work, used to order the queue.
+     */
+    public ConversionCost getCost() {
+        return cost;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFinished() {
+        return status == JobStatus.COMPLETED || status == JobStatus.FAILED || status == JobStatus.CANCELLED;
+    }
+
+    /**
+     * Whether the job was cancelled or timed out rather than finishing on its own.
+     */
+    public synchronized boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Completes with this job once it has completed or failed.
+     */
+    public CompletableFuture<ConversionJob> whenFinished() {
+        return finished;
+    }
+
+    /**
+     * Register the thread that is about to run this job, so that aborting interrupts it.
+     * @return false if the job was aborted while queued and must not run
+     */
+    synchronized boolean attach(Thread thread) {
+        if (aborted) return false;
+        runner = thread;
+        return true;
+    }
+
+    synchronized void detach() {
+        runner = null;
+    }
+
+    /**
+     * Finish the job with {@code status} and interrupt its conversion if one is running.
+     * @return false if the job had already finished
+     */
+    synchronized boolean abort(JobStatus status, String message) {
+        if (isFinished()) return false;
+        aborted = true;
+        finish(status, message);
+        if (runner != null) runner.interrupt();
+        return true;
+    }
+
+    synchronized void markRunning() {
+        if (isFinished()) return;
+        startedAt = Instant.now();
+        status = JobStatus.RUNNING;
+    }
+
+    synchronized void markCompleted() {
+        if (!isFinished()) finish(JobStatus.COMPLETED, null);
+    }
+
+    synchronized void markFailed(String message) {
+        if (!isFinished()) finish(JobStatus.FAILED, message);
+    }
+
+    private void finish(JobStatus status, String message) {
+        error = message;
+        finishedAt = Instant.now();
+        this.status = status;
+        finished.complete(this);
+    }
+}
@@ -0,0 +1,440 @@
+package com.project.fileconverter.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.project.fileconverter.model.ConversionOptions;
+import com.project.fileconverter.model.JobStatus;
+import com.project.fileconverter.model.StoredFile;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs conversions off the request thread on a bounded worker pool.
+ * Uploads are stored synchronously, then queued; once the queue is full new
+ * submissions are rejected with {@link ConversionQueueFullException}.
+ * <p>
+ * Before a job is queued its run time is predicted by {@link CostEstimator}. Admission is
+ * weighted by that prediction: besides {@code conversion.queue-capacity} jobs, the queue
+ * holds at most {@code conversion.scheduler.max-queued-cost} of predicted work, so a burst
+ * of large documents is turned away early while small ones still get in. The queue is
+ * ordered by submission time plus predicted run time times
+ * {@code conversion.scheduler.cost-weight}: short jobs overtake long ones, but a long job
+ * only waits behind work submitted up to its own predicted run time after it, so it
+ * cannot starve. A weight of 0 keeps the queue first in, first out.
+ * Workers are platform threads, one per CPU by default, while requests may run on
+ * virtual threads; a converter never runs on a request thread.
+ * <p>
+ * At most {@code conversion.per-format-limit} jobs of one format run at once. The limit
+ * is checked when a worker takes a job off the queue: a job whose format is at its limit
+ * is set aside, without holding the worker, and requeued with its original priority as
+ * soon as a job of that format finishes. A burst of one format thus leaves the other
+ * workers to the other formats.
+ * <p>
+ * Each running conversion has a deadline, {@code conversion.timeouts.<format>} or
+ * {@code conversion.timeouts.default}. A job past its deadline, or cancelled through
+ * {@link #cancel}, is finished at once and its thread interrupted; its files are removed
+ * when the conversion unwinds. A job cancelled while queued leaves the queue at once,
+ * giving back its slot and predicted work. Converters stop at their next interrupt check; with
+ * {@code conversion.isolation.enabled} the worker process is killed instead, which also
+ * stops library code that never checks.
+ */
+@Service
+public class ConversionJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversionJobService.class);
+
+    private final ConverterService converterService;
+    private final ThreadPoolExecutor executor;
+    private final int poolSize;
+    private final int perFormatLimit;
+    private final long retryAfterSeconds;
+    private final Duration jobRetention;
+    private final Map<String, ConversionJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, FormatLane> lanes = new ConcurrentHashMap<>();
+    /** Queue entries of jobs not yet started, by job id. */
+    private final Map<String, QueuedJob> pending = new ConcurrentHashMap<>();
+    private final Environment environment;
+    private final Duration defaultTimeout;
+    private final Map<String, Duration> timeouts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService watchdog;
+    private final int queueCapacity;
+    private final double costWeight;
+    private final long maxQueuedCostMillis;
+    private final ReentrantLock admission = new ReentrantLock();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong queuedCostMillis = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ConversionJobService(ConverterService converterService,
+                                ConversionMetrics metrics,
+                                @Value("${conversion.workers:0}") int workers,
+                                @Value("${conversion.queue-capacity:100}") int queueCapacity,
+                                @Value("${conversion.per-format-limit:0}") int perFormatLimit,
+                                @Value("${conversion.retry-after-seconds:10}") long retryAfterSeconds,
+                                @Value("${conversion.job-retention:PT1H}") Duration jobRetention,
+                                @Value("${conversion.timeouts.default:PT5M}") Duration defaultTimeout,
+                                @Value("${conversion.scheduler.cost-weight:1.0}") double costWeight,
+                                @Value("${conversion.scheduler.max-queued-cost:PT30M}") Duration maxQueuedCost,
+                                Environment environment) {
+        this.converterService = converterService;
+        this.environment = environment;
+        this.defaultTimeout = defaultTimeout;
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "conversion-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        this.poolSize = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.perFormatLimit = perFormatLimit > 0 ? perFormatLimit : poolSize;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.jobRetention = jobRetention;
+        this.queueCapacity = queueCapacity;
+        this.costWeight = costWeight;
+        this.maxQueuedCostMillis = maxQueuedCost.toMillis();
+        // unbounded itself; admit() keeps it within queue-capacity and max-queued-cost
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), workerThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        metrics.bindQueue(this, executor);
+        log.info("Conversion pool started with {} workers, queue capacity {} ({} of predicted work), per-format limit {}",
+                poolSize, queueCapacity, maxQueuedCost, this.perFormatLimit);
+    }
+
+    /**
+     * Store the upload and queue it for conversion.
+     * @throws ConversionQueueFullException if the queue is full of jobs or of predicted work
+     * @throws IOException if the file cannot be stored or no converter handles it
+     */
+    public ConversionJob submit(MultipartFile file, ConversionOptions options) throws IOException {
+        StoredFile stored = converterService.store(file);
+        try {
+            return submit(stored, options);
+        } catch (ConversionQueueFullException e) {
+            converterService.discard(stored);
+            throw e;
+        }
+    }
+
+    /**
+     * Queue an already stored file for conversion. Unlike the upload variant, a rejected
+     * submission leaves the stored file in place so the caller can retry it.
+     * @throws ConversionQueueFullException if the queue is full of jobs or of predicted work
+     * @throws IOException if no converter handles the file or it cannot be read; it is discarded
+     */
+    public ConversionJob submit(StoredFile stored, ConversionOptions options) throws IOException {
+        String format;
+        ConversionCost cost;
+        try {
+            format = converterService.formatKey(stored);
+            if (converterService.convertFromCache(stored, options)) {
+                ConversionJob job = new ConversionJob(stored, format, options);
+                jobs.put(job.getId(), job);
+                job.markRunning();
+                job.markCompleted();
+                return job;
+            }
+            cost = converterService.estimateCost(stored);
+        } catch (IOException e) {
+            converterService.discard(stored);
+            throw e;
+        }
+
+        long costMillis = cost.millis();
+        if (!admit(costMillis)) {
+            long backlogSeconds = queuedCostMillis.get() / 1000 / poolSize;
+            throw new ConversionQueueFullException("Conversion queue is full, try again later",
+                    Math.max(retryAfterSeconds, backlogSeconds));
+        }
+        ConversionJob job = new ConversionJob(stored, format, options, cost);
+        jobs.put(job.getId(), job);
+        QueuedJob entry = new QueuedJob(job, costMillis);
+        pending.put(job.getId(), entry);
+        try {
+            executor.execute(entry);
+        } catch (RejectedExecutionException e) {
+            // only once shut down
+            entry.leaveQueue();
+            pending.remove(job.getId());
+            jobs.remove(job.getId());
+            throw new ConversionQueueFullException("Conversion queue is full, try again later", retryAfterSeconds);
+        }
+        log.info("Queued {} as job {} ({}, ~{} {}, {}s predicted)", stored.getOriginalFilename(), job.getId(),
+                format, cost.units(), cost.unit().name().toLowerCase(), String.format("%.1f", cost.seconds()));
+        return job;
+    }
+
+    /**
+     * Reserve a queue slot and the predicted work of one job. An empty queue always admits,
+     * so a single job predicted above max-queued-cost can still run.
+     */
+    private boolean admit(long costMillis) {
+        admission.lock();
+        try {
+            int depth = queued.get();
+            if (depth >= queueCapacity) return false;
+            if (depth > 0 && queuedCostMillis.get() + costMillis > maxQueuedCostMillis) return false;
+            queued.incrementAndGet();
+            queuedCostMillis.addAndGet(costMillis);
+            return true;
+        } finally {
+            admission.unlock();
+        }
+    }
+
+    private void release(long costMillis) {
+        queued.decrementAndGet();
+        queuedCostMillis.addAndGet(-costMillis);
+    }
+
+    /**
+     * Make a job that runs outside the queue, e.g. a merge, visible through {@link #getJob}
+     * and subject to the deadline for its format.
+     */
+    void track(ConversionJob job) {
+        jobs.put(job.getId(), job);
+        ScheduledFuture<?> deadline = scheduleDeadline(job);
+        job.whenFinished().thenRun(() -> deadline.cancel(false));
+    }
+
+    public ConversionJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Cancel a queued or running job. A queued job is taken off the queue and its stored
+     * file removed right away. A running conversion is interrupted; its partial output and
+     * stored files are removed once it stops.
+     * @return false if the job had already finished
+     */
+    public boolean cancel(ConversionJob job) {
+        if (!job.abort(JobStatus.CANCELLED, "Cancelled")) return false;
+        log.info("Cancelled job {}", job.getId());
+        QueuedJob entry = pending.remove(job.getId());
+        // not removed: a worker has just taken it and discards it on seeing the abort
+        if (entry != null && entry.dequeue()) {
+            entry.leaveQueue();
+            converterService.discard(job.getStoredFile());
+        }
+        return true;
+    }
+
+    /**
+     * Deadline for one conversion of {@code format}.
+     */
+    Duration timeoutFor(String format) {
+        return timeouts.computeIfAbsent(format, f ->
+                environment.getProperty("conversion.timeouts." + timeoutKey(f), Duration.class, defaultTimeout));
+    }
+
+    /** {@code docx} for DocxPdfConverter, so properties read conversion.timeouts.docx. */
+    private static String timeoutKey(String format) {
+        String key = format.endsWith("PdfConverter") ? format.substring(0, format.length() - "PdfConverter".length()) : format;
+        return key.toLowerCase();
+    }
+
+    public int getWorkerCount() {
+        return poolSize;
+    }
+
+    /**
+     * Jobs waiting for a worker or for a slot of their format.
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * Predicted run time of all queued jobs.
+     */
+    public Duration getQueuedCost() {
+        return Duration.ofMillis(queuedCostMillis.get());
+    }
+
+    private void run(ConversionJob job) {
+        if (!job.attach(Thread.currentThread())) {
+            // cancelled while queued
+            converterService.discard(job.getStoredFile());
+            return;
+        }
+        ScheduledFuture<?> deadline = null;
+        try {
+            Instant due = Instant.now().plus(timeoutFor(job.getFormat()));
+            deadline = scheduleDeadline(job);
+            job.markRunning();
+            converterService.convert(job.getStoredFile(), job.getOptions(), job.getCost(), due);
+            job.markCompleted();
+        } catch (Exception e) {
+            job.markFailed(e.getMessage());
+        } finally {
+            if (deadline != null) deadline.cancel(false);
+            job.detach();
+            // An interrupt aimed at this job must not reach the next one on this thread
+            Thread.interrupted();
+            if (job.isAborted()) converterService.discard(job.getStoredFile());
+        }
+    }
+
+    /**
+     * Fail the job and interrupt its thread once its format's timeout has passed.
+     */
+    private ScheduledFuture<?> scheduleDeadline(ConversionJob job) {
+        Duration timeout = timeoutFor(job.getFormat());
+        return watchdog.schedule(() -> {
+            if (job.abort(JobStatus.FAILED, "Timed out after " + timeout)) {
+                log.warn("Job {} ({}) timed out after {}", job.getId(), job.getFormat(), timeout);
+            }
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Scheduled(fixedDelayString = "PT5M")
+    public void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queue entry, ordered by submission time plus weighted predicted run time.
+     */
+    private final class QueuedJob implements Runnable, Comparable<QueuedJob> {
+        private final ConversionJob job;
+        private final long costMillis;
+        private final long key;
+        private final long seq = sequence.incrementAndGet();
+        private final AtomicBoolean left = new AtomicBoolean();
+
+        QueuedJob(ConversionJob job, long costMillis) {
+            this.job = job;
+            this.costMillis = costMillis;
+            this.key = job.getSubmittedAt().toEpochMilli() + Math.round(costMillis * costWeight);
+        }
+
+        /**
+         * Give back the queue slot and predicted work; only the first call counts, as a
+         * cancel and a worker may both get here.
+         */
+        void leaveQueue() {
+            if (left.compareAndSet(false, true)) release(costMillis);
+        }
+
+        /**
+         * Take this entry off the executor queue or its format's set-aside jobs.
+         * @return false if a worker already has it
+         */
+        boolean dequeue() {
+            if (executor.remove(this)) return true;
+            FormatLane lane = lanes.get(job.getFormat());
+            return lane != null && lane.remove(this);
+        }
+
+        @Override
+        public void run() {
+            if (job.isAborted()) {
+                // cancelled while a worker was taking it off the queue
+                leaveQueue();
+                converterService.discard(job.getStoredFile());
+                return;
+            }
+            FormatLane lane = lanes.computeIfAbsent(job.getFormat(), k -> new FormatLane());
+            // at the format's limit: set aside until a job of this format finishes
+            if (!lane.tryStart(this)) return;
+            pending.remove(job.getId());
+            leaveQueue();
+            try {
+                ConversionJobService.this.run(job);
+            } finally {
+                QueuedJob waiting = lane.finish();
+                if (waiting != null) requeue(waiting);
+            }
+        }
+
+        @Override
+        public int compareTo(QueuedJob other) {
+            int c = Long.compare(key, other.key);
+            return c != 0 ? c : Long.compare(seq, other.seq);
+        }
+    }
+
+    private void requeue(QueuedJob waiting) {
+        try {
+            executor.execute(waiting);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            log.debug("Dropped job {} waiting for a {} slot", waiting.job.getId(), waiting.job.getFormat());
+        }
+    }
+
+    /**
+     * Running count and set-aside jobs of one format.
+     */
+    private final class FormatLane {
+        private final PriorityQueue<QueuedJob> waiting = new PriorityQueue<>();
+        private int running;
+
+        /**
+         * Take a slot, or keep the job to be requeued by {@link #finish}.
+         */
+        synchronized boolean tryStart(QueuedJob job) {
+            if (running < perFormatLimit) {
+                running++;
+                return true;
+            }
+            waiting.add(job);
+            return false;
+        }
+
+        /**
+         * Free a slot.
+         * @return the most urgent set-aside job, to be requeued, or null
+         */
+        synchronized QueuedJob finish() {
+            running--;
+            return waiting.poll();
+        }
+
+        /**
+         * Drop a set-aside job that was cancelled.
+         */
+        synchronized boolean remove(QueuedJob job) {
+            return waiting.remove(job);
+        }
+    }
+
+    private static ThreadFactory workerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "conversion-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
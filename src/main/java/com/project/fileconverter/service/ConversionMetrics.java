@@ -0,0 +1,109 @@
+package com.project.fileconverter.service;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Meters for the conversion pipeline, exposed through Actuator (including /actuator/prometheus).
+ * <p>
+ * Each pipeline phase (upload, detect, select, convert, write) runs inside an
+ * {@link Observation} named {@code conversion.phase}, which yields a timer tagged by phase,
+ * converter and MIME type, and a tracing span when a tracer bridge is on the classpath.
+ * <p>
+ * Storage gauges read running totals kept by {@link StorageIndex} and
+ * {@link ConversionCache}, so a scrape never lists the storage directory.
+ */
+@Component
+public class ConversionMetrics {
+
+    public static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry registry;
+    private final ObservationRegistry observations;
+
+    @FunctionalInterface
+    public interface Phase<T> {
+        T run() throws IOException;
+    }
+
+    public ConversionMetrics(MeterRegistry registry, ObservationRegistry observations,
+                             StorageIndex index, ConversionCache cache) {
+        this.registry = registry;
+        this.observations = observations;
+        Gauge.builder("conversion.storage.size", index, StorageIndex::totalSize)
+                .description("Bytes of stored uploads and PDFs, counting files shared through the cache once per upload")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("conversion.cache.size", cache, ConversionCache::getBlobBytes)
+                .description("Bytes of content-addressed cache blobs")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Run one pipeline phase inside an observation tagged with the converter and MIME type.
+     */
+    public <T> T observe(String phase, String converter, String mimeType, Phase<T> action) throws IOException {
+        Observation observation = Observation.createNotStarted("conversion.phase", observations)
+                .lowCardinalityKeyValue("phase", phase)
+                .lowCardinalityKeyValue("converter", converter != null ? converter : UNKNOWN)
+                .lowCardinalityKeyValue("mime", mimeType != null ? mimeType : UNKNOWN)
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            return action.run();
+        } catch (IOException | RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    public void bytesIn(String mimeType, long bytes) {
+        Counter.builder("conversion.bytes.in").baseUnit("bytes").tag("mime", tag(mimeType))
+                .register(registry).increment(bytes);
+    }
+
+    public void bytesOut(String converter, long bytes) {
+        Counter.builder("conversion.bytes.out").baseUnit("bytes").tag("converter", tag(converter))
+                .register(registry).increment(bytes);
+    }
+
+    public void failure(String converter, String mimeType) {
+        Counter.builder("conversion.failures").tag("converter", tag(converter)).tag("mime", tag(mimeType))
+                .register(registry).increment();
+    }
+
+    public void cacheHit(String converter) {
+        Counter.builder("conversion.cache.hits").tag("converter", tag(converter))
+                .register(registry).increment();
+    }
+
+    /**
+     * Expose queue depth, queued work and busy workers of the conversion pool. Depth and
+     * work come from the job service, so jobs set aside by a per-format limit count too.
+     */
+    public void bindQueue(ConversionJobService jobs, ThreadPoolExecutor executor) {
+        Gauge.builder("conversion.queue.depth", jobs, ConversionJobService::getQueueDepth)
+                .description("Conversions waiting for a worker or for a slot of their format")
+                .register(registry);
+        Gauge.builder("conversion.queue.cost", jobs, j -> j.getQueuedCost().toMillis() / 1000.0)
+                .description("Predicted run time of queued conversions")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("conversion.workers.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(registry);
+    }
+
+    private static String tag(String value) {
+        return value != null ? value : UNKNOWN;
+    }
+}
@@ -0,0 +1,19 @@
+package com.project.fileconverter.service;
+
+/**
+ * Thrown when the conversion queue cannot accept more work. Clients should retry
+ * after {@link #getRetryAfterSeconds()}.
+ */
+public class ConversionQueueFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ConversionQueueFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
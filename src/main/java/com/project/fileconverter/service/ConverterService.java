@@ -2,11 +2,14 @@ package com.project.fileconverter.service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.tika.Tika;
@@ -14,83 +17,340 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.project.fileconverter.converter.ConverterRegistry;
 import com.project.fileconverter.converter.PdfConverter;
+import com.project.fileconverter.model.ConversionOptions;
 import com.project.fileconverter.model.StoredFile;
+import com.project.fileconverter.worker.WorkerProcessPool;
 
 @Service
 public class ConverterService {
 
     private static final Logger log = LoggerFactory.getLogger(ConverterService.class);
 
-    private final Path storageDir;
+    /** Format key used for uploads that are already PDF and only need copying. */
+    public static final String PDF_FORMAT = "pdf";
+
+    /** Extensions kept on stored originals; anything else is dropped from the file name. */
+    private static final Pattern SAFE_EXTENSION = Pattern.compile("[A-Za-z0-9]{1,16}");
+
     private final Tika tika = new Tika();
-    private final List<PdfConverter> converters;
+    private final ConverterRegistry converters;
+    private final ConversionCache cache;
+    private final ConversionMetrics metrics;
+    private final StorageIndex index;
+    private final WorkerProcessPool workers;
+    private final CostEstimator estimator;
+    private final Path spoolDir;
+    private final long spoolThreshold;
+    private volatile Boolean spoolBesideStorage;
 
-    public ConverterService(@Value("${file.storage.location:storage}") String storageLocation,
-                            List<PdfConverter> converters) throws IOException {
-        this.storageDir = Paths.get(storageLocation).toAbsolutePath();
-        Files.createDirectories(this.storageDir);
+    public ConverterService(ConverterRegistry converters,
+                            ConversionCache cache,
+                            ConversionMetrics metrics,
+                            StorageIndex index,
+                            WorkerProcessPool workers,
+                            CostEstimator estimator,
+                            @Value("${spring.servlet.multipart.location:}") String spoolLocation,
+                            @Value("${spring.servlet.multipart.file-size-threshold:0B}") DataSize spoolThreshold) {
         this.converters = converters;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.index = index;
+        this.workers = workers;
+        this.estimator = estimator;
+        // embedded containers spool under java.io.tmpdir unless a location is configured
+        this.spoolDir = Paths.get(spoolLocation.isEmpty() ? System.getProperty("java.io.tmpdir") : spoolLocation);
+        this.spoolThreshold = spoolThreshold.toBytes();
     }
-    
+
     public StoredFile storeAndConvert(MultipartFile multipart) throws IOException {
+        StoredFile stored = store(multipart);
+        convert(stored);
+        return stored;
+    }
+
+    /**
+     * Store the uploaded file and detect its MIME type without converting it. Content
+     * uploaded before shares storage with the earlier copy.
+     * <p>
+     * A part the servlet container has spooled to disk on the storage file system is
+     * renamed into storage by {@link MultipartFile#transferTo(java.io.File)}, and one read
+     * pass then hashes it and captures the bytes used for sniffing. Any other part, held in
+     * memory or spooled elsewhere, would be copied by that call, so it is streamed into
+     * storage instead and hashed and sniffed on the way.
+     */
+    public StoredFile store(MultipartFile multipart) throws IOException {
         String id = UUID.randomUUID().toString();
         String originalFilename = multipart.getOriginalFilename() != null ? multipart.getOriginalFilename() : id;
+        return store(id, originalFilename, uploadPath -> {
+            if (renamesInto(multipart, uploadPath)) {
+                multipart.transferTo(uploadPath.toFile());
+                try (IngestInputStream in = new IngestInputStream(Files.newInputStream(uploadPath))) {
+                    in.transferTo(OutputStream.nullOutputStream());
+                    return in;
+                }
+            }
+            try (IngestInputStream in = new IngestInputStream(multipart.getInputStream())) {
+                Files.copy(in, uploadPath);
+                return in;
+            }
+        });
+    }
+
+    /**
+     * Whether {@link MultipartFile#transferTo(java.io.File)} can move the part into
+     * {@code target} by renaming: the container spooled it to disk, above the
+     * file-size-threshold, on the same file store as storage.
+     */
+    private boolean renamesInto(MultipartFile multipart, Path target) {
+        if (multipart.getSize() <= spoolThreshold) return false;
+        Boolean same = spoolBesideStorage;
+        if (same == null) {
+            try {
+                same = Files.getFileStore(spoolDir).equals(Files.getFileStore(target.getParent()));
+            } catch (IOException e) {
+                log.debug("Cannot compare upload spool {} with storage: {}", spoolDir, e.getMessage());
+                same = false;
+            }
+            spoolBesideStorage = same;
+        }
+        return same;
+    }
+
+    /**
+     * Store a file read from {@code content}, which is written to storage, hashed and
+     * sniffed in a single pass. The stream is not closed.
+     */
+    public StoredFile store(InputStream content, String filename) throws IOException {
+        String id = UUID.randomUUID().toString();
+        return store(id, filename != null ? filename : id, uploadPath -> {
+            IngestInputStream in = new IngestInputStream(content);
+            Files.copy(in, uploadPath);
+            return in;
+        });
+    }
+
+    /**
+     * Writes an upload to the given path and returns the stream it was read through.
+     */
+    @FunctionalInterface
+    private interface Upload {
+        IngestInputStream writeTo(Path target) throws IOException;
+    }
+
+    private StoredFile store(String id, String originalFilename, Upload upload) throws IOException {
         String ext = FilenameUtils.getExtension(originalFilename);
+        if (!SAFE_EXTENSION.matcher(ext).matches()) ext = "";
 
-        // Store original file
-        Path originalPath = storageDir.resolve(id + "-orig" + (ext.isEmpty() ? "" : "." + ext));
-        try (InputStream in = multipart.getInputStream()) {
-            Files.copy(in, originalPath);
+        // Store original file in its shard, indexed before anything is written so that
+        // cleanup also finds files left behind by a crash
+        Path dir = index.directoryFor(id);
+        Path originalPath = dir.resolve(id + "-orig" + (ext.isEmpty() ? "" : "." + ext));
+        Path pdfPath = dir.resolve(id + ".pdf");
+        Path uploadPath = dir.resolve(id + "-upload.part");
+        index.put(id, originalPath, pdfPath, 0);
+        IngestInputStream ingested;
+        try {
+            ingested = metrics.observe("upload", null, null, () -> upload.writeTo(uploadPath));
+        } catch (IOException e) {
+            Files.deleteIfExists(uploadPath);
+            index.remove(id);
+            throw e;
         }
+        String hash = ingested.getHash();
+        Path sourceBlob = cache.internSource(hash, uploadPath, originalPath);
+
+        // Detect MIME type from the sniffed prefix and the file name
+        String detected = metrics.observe("detect", null, null, () -> tika.detect(ingested.getPrefix(), originalFilename));
+        metrics.bytesIn(detected, ingested.getSize());
+        index.put(id, originalPath, pdfPath, ingested.getSize());
+        if (sourceBlob != null) index.addBlob(id, sourceBlob);
+
+        return new StoredFile(id, originalFilename, detected, originalPath, pdfPath, hash);
+    }
+
+    /**
+     * Reserve storage for a PDF built from several inputs, such as a merge. The entry
+     * has no separate original; downloads return the PDF itself.
+     */
+    public StoredFile createOutput(String filename) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path pdfPath = index.directoryFor(id).resolve(id + ".pdf");
+        index.put(id, pdfPath, pdfPath, 0);
+        return new StoredFile(id, filename, "application/pdf", pdfPath, pdfPath, null);
+    }
 
-        // Detect MIME type
-        String detected = tika.detect(originalPath.toFile());
-        Path pdfPath = storageDir.resolve(id + ".pdf");
+    /**
+     * Record the final size of an output created by {@link #createOutput(String)}.
+     */
+    public void recordOutput(StoredFile output) throws IOException {
+        index.put(output.getId(), output.getPdfPath(), output.getPdfPath(), Files.size(output.getPdfPath()));
+    }
+
+    /**
+     * Convert a previously stored file to PDF. The PDF is written next to the final
+     * path and moved into place once complete, so readers never see a partial file.
+     */
+    public void convert(StoredFile stored) throws IOException {
+        convert(stored, ConversionOptions.defaults());
+    }
 
-        boolean converted = false;
+    /**
+     * Convert a previously stored file to PDF with per-request options.
+     */
+    public void convert(StoredFile stored, ConversionOptions options) throws IOException {
+        convert(stored, options, null, null);
+    }
 
-        // Handle PDF: just copy
-        if ("application/pdf".equalsIgnoreCase(detected)) {
-            Files.copy(originalPath, pdfPath);
-            converted = true;
+    /**
+     * Convert a previously stored file and feed the time it took back into the estimate
+     * of future conversions.
+     * @param cost the estimate made for this file, or null
+     * @param deadline when the job fails; an isolated conversion still running then is
+     *                 killed. Null for conversion.isolation.timeout.
+     */
+    public void convert(StoredFile stored, ConversionOptions options, ConversionCost cost, Instant deadline)
+            throws IOException {
+        String originalFilename = stored.getOriginalFilename();
+        Path pdfPath = stored.getPdfPath();
+        Path partPath = pdfPath.resolveSibling(pdfPath.getFileName() + ".part");
+
+        // Handle PDF: just share the original
+        if (isPdf(stored)) {
+            cache.linkOrCopy(stored.getOriginalPath(), pdfPath);
             log.info("File is already PDF, copied: {}", originalFilename);
+            indexSize(stored);
+            return;
+        }
+
+        if (convertFromCache(stored, options)) {
+            indexSize(stored);
+            return;
         }
 
-        // If still not converted, try strategy-based converters (docx/xlsx/pptx readers, etc.)
-        if (!converted) {
-            var converterOpt = converters.stream()
-                    .filter(c -> c.supports(detected, originalFilename))
-                    .findFirst();
-            if (converterOpt.isPresent()) {
-                PdfConverter converter = converterOpt.get();
-                try {
-                    log.info("Converting {} using {}", originalFilename, converter.getClass().getSimpleName());
-                    converter.convert(originalPath.toFile(), pdfPath.toFile());
-                    converted = true;
-                    log.info("Successfully converted {} using {}", originalFilename, converter.getClass().getSimpleName());
-                } catch (IOException e) {
-                    log.error("Conversion failed for {}: {}", originalFilename, e.getMessage(), e);
-                    throw e;
+        // Otherwise use the strategy-based converters (docx/xlsx/pptx readers, etc.)
+        String mime = stored.getContentType();
+        PdfConverter converter = metrics.observe("select", null, mime, () -> resolveConverter(stored));
+        String converterName = ConverterRegistry.nameOf(converter);
+        try {
+            log.info("Converting {} using {}", originalFilename, converterName);
+            long start = System.nanoTime();
+            metrics.observe("convert", converterName, mime, () -> {
+                if (workers.isEnabled()) {
+                    workers.convert(converter, stored.getOriginalPath().toFile(), partPath.toFile(), options, deadline);
+                } else {
+                    converter.convert(stored.getOriginalPath().toFile(), partPath.toFile(), options);
                 }
-            } else {
-                throw new IOException("No converter available for " + detected + " (filename=" + originalFilename + ")");
+                return null;
+            });
+            if (cost != null && cost.converter().equals(converterName)) {
+                estimator.record(cost, System.nanoTime() - start);
             }
+            metrics.observe("write", converterName, mime, () -> {
+                Files.move(partPath, pdfPath, StandardCopyOption.ATOMIC_MOVE);
+                Path blob = cache.publishPdf(stored.getHash(), cacheKey(converter, options), pdfPath);
+                if (blob != null) index.addBlob(stored.getId(), blob);
+                return null;
+            });
+            metrics.bytesOut(converterName, Files.size(pdfPath));
+            indexSize(stored);
+            log.info("Successfully converted {} using {}", originalFilename, converterName);
+        } catch (IOException | RuntimeException e) {
+            metrics.failure(converterName, mime);
+            Files.deleteIfExists(partPath);
+            log.error("Conversion failed for {}: {}", originalFilename, e.getMessage(), e);
+            throw e;
         }
+    }
 
-        return new StoredFile(id, originalFilename, detected, originalPath, pdfPath);
+    /**
+     * Reuse the PDF of an earlier upload with the same content, if the same converter
+     * version produced one.
+     * @return true if the PDF is in place and no conversion is needed
+     */
+    public boolean convertFromCache(StoredFile stored, ConversionOptions options) throws IOException {
+        if (isPdf(stored)) return false;
+        PdfConverter converter = resolveConverter(stored);
+        Path blob = cache.linkCachedPdf(stored.getHash(), cacheKey(converter, options), stored.getPdfPath());
+        if (blob == null) return false;
+        index.addBlob(stored.getId(), blob);
+        metrics.cacheHit(ConverterRegistry.nameOf(converter));
+        log.info("Reused cached PDF for {} ({})", stored.getOriginalFilename(), stored.getHash());
+        return true;
     }
 
-    public Path getPdfPath(String id) {
-        Path p = storageDir.resolve(id + ".pdf");
-        return Files.exists(p) ? p : null;
+    /**
+     * Pick the converter for a stored file.
+     * @throws IOException if no converter handles the detected type
+     */
+    public PdfConverter resolveConverter(StoredFile stored) throws IOException {
+        String detected = stored.getContentType();
+        String originalFilename = stored.getOriginalFilename();
+        PdfConverter converter = converters.find(detected, originalFilename);
+        if (converter == null) {
+            throw new IOException("No converter available for " + detected + " (filename=" + originalFilename + ")");
+        }
+        return converter;
     }
 
-    public Path getOriginalPath(String id) throws IOException {
-        try (var s = Files.list(storageDir)) {
-            return s.filter(p -> p.getFileName().toString().startsWith(id + "-orig")).findFirst().orElse(null);
+    /**
+     * Predict the work of converting a stored file, before it is queued.
+     * @throws IOException if no converter handles the file
+     */
+    public ConversionCost estimateCost(StoredFile stored) throws IOException {
+        if (isPdf(stored)) return ConversionCost.none(PDF_FORMAT);
+        PdfConverter converter = resolveConverter(stored);
+        return estimator.estimate(stored.getOriginalPath(), ConverterRegistry.nameOf(converter),
+                converter.capabilities().costUnit());
+    }
+
+    /**
+     * Key used to group conversions of the same kind, e.g. for per-format concurrency limits.
+     */
+    public String formatKey(StoredFile stored) throws IOException {
+        return isPdf(stored) ? PDF_FORMAT : ConverterRegistry.nameOf(resolveConverter(stored));
+    }
+
+    /**
+     * Remove everything stored for a file that will never be converted.
+     */
+    public void discard(StoredFile stored) {
+        try {
+            Files.deleteIfExists(stored.getOriginalPath());
+            Files.deleteIfExists(stored.getPdfPath());
+            index.remove(stored.getId());
+        } catch (IOException e) {
+            log.warn("Failed to discard {}: {}", stored.getId(), e.getMessage());
         }
     }
+
+    public Path getPdfPath(String id) {
+        Path p = index.getPdfPath(id);
+        return p != null && Files.exists(p) ? p : null;
+    }
+
+    public Path getOriginalPath(String id) {
+        Path p = index.getOriginalPath(id);
+        return p != null && Files.exists(p) ? p : null;
+    }
+
+    /**
+     * Record the combined size of the original and its PDF in the storage index.
+     */
+    private void indexSize(StoredFile stored) throws IOException {
+        long size = Files.size(stored.getOriginalPath()) + Files.size(stored.getPdfPath());
+        index.put(stored.getId(), stored.getOriginalPath(), stored.getPdfPath(), size);
+    }
+
+    private String cacheKey(PdfConverter converter, ConversionOptions options) {
+        return ConverterRegistry.nameOf(converter) + "-v" + converter.version() + converter.cacheVariant(options);
+    }
+
+    private boolean isPdf(StoredFile stored) {
+        return "application/pdf".equalsIgnoreCase(stored.getContentType());
+    }
 }
@@ -0,0 +1,128 @@
+package com.project.fileconverter.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.project.fileconverter.converter.CostUnit;
+
+/**
+ * Predicts how long a conversion will take, before it is queued.
+ * <p>
+ * The amount of work is counted in the {@link CostUnit} the converter declares in its
+ * capabilities: pages and slides from {@code docProps/app.xml}, and rows from each sheet's
+ * {@code <dimension>} element. Only the ZIP directory and the first bytes of those parts
+ * are read. Anything else, including legacy binary formats without those parts, counts
+ * its size in KiB. The seconds per unit are a moving average of past conversions for each
+ * converter and unit, starting from rough defaults.
+ */
+@Component
+public class CostEstimator {
+
+    private static final Logger log = LoggerFactory.getLogger(CostEstimator.class);
+
+    /** Seconds per unit assumed until a converter has been observed. */
+    private static final Map<CostUnit, Double> DEFAULT_SECONDS_PER_UNIT =
+            Map.of(CostUnit.PAGES, 0.25, CostUnit.SLIDES, 0.4, CostUnit.ROWS, 0.0004, CostUnit.KIB, 0.002);
+    private static final double MIN_SECONDS = 0.05;
+    /** Bytes read from the start of a package part when looking for a count. */
+    private static final int PEEK_BYTES = 8192;
+
+    private static final Pattern APP_PAGES = Pattern.compile("<(?:\\w+:)?Pages>(\\d+)<");
+    private static final Pattern APP_SLIDES = Pattern.compile("<(?:\\w+:)?Slides>(\\d+)<");
+    private static final Pattern DIMENSION = Pattern.compile("<(?:\\w+:)?dimension\\s+ref=\"[A-Z]*\\d*:?[A-Z]*(\\d+)\"");
+
+    private final double smoothing;
+    private final Map<String, Double> secondsPerUnit = new ConcurrentHashMap<>();
+
+    public CostEstimator(@Value("${conversion.scheduler.smoothing:0.2}") double smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * Predicted cost of converting {@code file} with the named converter.
+     * @param unit the converter's declared {@link CostUnit}
+     */
+    public ConversionCost estimate(Path file, String converter, CostUnit unit) throws IOException {
+        long size = Files.size(file);
+        ConversionCost counted = switch (unit) {
+            case PAGES -> count(file, converter, "docProps/app.xml", APP_PAGES, unit);
+            case SLIDES -> count(file, converter, "docProps/app.xml", APP_SLIDES, unit);
+            case ROWS -> countRows(file, converter);
+            case KIB -> null;
+        };
+        return counted != null ? counted : cost(converter, CostUnit.KIB, Math.max(1, size / 1024));
+    }
+
+    /**
+     * Fold the measured duration of a finished conversion into its converter's average.
+     */
+    public void record(ConversionCost cost, long elapsedNanos) {
+        if (cost.units() <= 0) return;
+        double observed = elapsedNanos / 1e9 / cost.units();
+        secondsPerUnit.merge(key(cost.converter(), cost.unit()), observed,
+                (previous, sample) -> previous + smoothing * (sample - previous));
+    }
+
+    private ConversionCost cost(String converter, CostUnit unit, long units) {
+        double rate = secondsPerUnit.getOrDefault(key(converter, unit), DEFAULT_SECONDS_PER_UNIT.get(unit));
+        return new ConversionCost(converter, unit, units, Math.max(MIN_SECONDS, units * rate));
+    }
+
+    private ConversionCost count(Path file, String converter, String part, Pattern pattern, CostUnit unit) {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            ZipEntry entry = zip.getEntry(part);
+            if (entry == null) return null;
+            Matcher m = pattern.matcher(peek(zip, entry));
+            return m.find() ? cost(converter, unit, Math.max(1, Long.parseLong(m.group(1)))) : null;
+        } catch (IOException | NumberFormatException e) {
+            // not an OOXML package (e.g. legacy .doc) or an unusual one; fall back to size
+            log.debug("No {} count in {}: {}", unit, file.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private ConversionCost countRows(Path file, String converter) {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            long rows = 0;
+            boolean found = false;
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.getName().startsWith("xl/worksheets/") || !entry.getName().endsWith(".xml")) continue;
+                Matcher m = DIMENSION.matcher(peek(zip, entry));
+                if (!m.find()) return null;
+                rows += Long.parseLong(m.group(1));
+                found = true;
+            }
+            return found ? cost(converter, CostUnit.ROWS, Math.max(1, rows)) : null;
+        } catch (IOException | NumberFormatException e) {
+            log.debug("No row count in {}: {}", file.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static String peek(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream in = zip.getInputStream(entry)) {
+            return new String(in.readNBytes(PEEK_BYTES), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String key(String converter, CostUnit unit) {
+        return converter + ":" + unit;
+    }
+}
@@ -0,0 +1,91 @@
+package com.project.fileconverter.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Passes an upload through while computing its SHA-256, counting its bytes and keeping
+ * the first bytes for MIME type sniffing, so one read of the upload serves all three.
+ */
+class IngestInputStream extends FilterInputStream {
+
+    /** Bytes kept for sniffing; enough for every magic pattern Tika's core registry uses. */
+    static final int SNIFF_LENGTH = 64 * 1024;
+
+    private final MessageDigest digest;
+    private final byte[] prefix = new byte[SNIFF_LENGTH];
+    private int prefixLength;
+    private long size;
+
+    IngestInputStream(InputStream in) {
+        super(in);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            byte[] one = {(byte) b};
+            update(one, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) update(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // every byte has to be hashed, so skipping reads through
+        byte[] buf = new byte[8192];
+        long skipped = 0;
+        while (skipped < n) {
+            int r = read(buf, 0, (int) Math.min(buf.length, n - skipped));
+            if (r < 0) break;
+            skipped += r;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /** Hex SHA-256 of everything read so far; call once the stream is exhausted. */
+    String getHash() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    byte[] getPrefix() {
+        return Arrays.copyOf(prefix, prefixLength);
+    }
+
+    private void update(byte[] b, int off, int len) {
+        digest.update(b, off, len);
+        size += len;
+        if (prefixLength < prefix.length) {
+            int n = Math.min(len, prefix.length - prefixLength);
+            System.arraycopy(b, off, prefix, prefixLength, n);
+            prefixLength += n;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.project.fileconverter.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.project.fileconverter.converter.PdfOutputFactory;
+import com.project.fileconverter.model.ConversionOptions;
+import com.project.fileconverter.model.JobStatus;
+import com.project.fileconverter.model.StoredFile;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Converts several files into one PDF. Every part is queued as a regular conversion,
+ * so parts convert concurrently, and each part's pages are appended to the merged
+ * document as soon as it and all parts before it are done. The merge itself is tracked
+ * as a job and its result is served like any other converted file. It has a deadline
+ * of its own, {@code conversion.timeouts.merge}; a merge past it stops its parts.
+ */
+@Service
+public class MergeService {
+
+    private static final Logger log = LoggerFactory.getLogger(MergeService.class);
+
+    /** Format key of merge jobs. */
+    public static final String MERGE_FORMAT = "merge";
+
+    private final ConverterService converterService;
+    private final ConversionJobService jobService;
+    private final PdfOutputFactory outputs;
+    private final int maxParts;
+    private final long maxMainMemory;
+    private final ExecutorService assemblers;
+
+    public MergeService(ConverterService converterService,
+                        ConversionJobService jobService,
+                        PdfOutputFactory outputs,
+                        @Value("${conversion.merge.max-parts:50}") int maxParts,
+                        @Value("${conversion.merge.max-main-memory:16MB}") DataSize maxMainMemory,
+                        @Value("${conversion.merge.threads:2}") int threads) {
+        this.converterService = converterService;
+        this.jobService = jobService;
+        this.outputs = outputs;
+        this.maxParts = maxParts;
+        this.maxMainMemory = maxMainMemory.toBytes();
+        AtomicInteger counter = new AtomicInteger();
+        this.assemblers = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "merge-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Store the parts, queue their conversions and start assembling them in the given order.
+     * @return the merge job; its id is the id of the merged PDF
+     * @throws BatchLimitExceededException if there are too many parts
+     * @throws ConversionQueueFullException if the queue cannot take every part
+     * @throws IOException if a part cannot be stored or no converter handles it
+     */
+    public ConversionJob submit(List<MultipartFile> files, ConversionOptions options) throws IOException {
+        if (files.size() > maxParts) {
+            throw new BatchLimitExceededException("A merge may contain at most " + maxParts + " files");
+        }
+        List<StoredFile> stored = new ArrayList<>();
+        List<ConversionJob> parts = new ArrayList<>();
+        StoredFile output = null;
+        try {
+            for (MultipartFile file : files) {
+                if (!file.isEmpty()) stored.add(converterService.store(file));
+            }
+            if (stored.isEmpty()) throw new IOException("No files to merge");
+            output = converterService.createOutput("merged.pdf");
+            for (StoredFile part : stored) {
+                parts.add(jobService.submit(part, options));
+            }
+        } catch (IOException | RuntimeException e) {
+            // the client retries the whole merge, so work on parts already queued is wasted
+            for (ConversionJob part : parts) {
+                if (!jobService.cancel(part)) converterService.discard(part.getStoredFile());
+            }
+            stored.subList(parts.size(), stored.size()).forEach(converterService::discard);
+            if (output != null) converterService.discard(output);
+            throw e;
+        }
+
+        ConversionJob merge = new ConversionJob(output, MERGE_FORMAT, options);
+        jobService.track(merge);
+        merge.markRunning();
+        Assembly assembly = new Assembly(merge, parts);
+        for (ConversionJob part : parts) {
+            part.whenFinished().thenRunAsync(assembly::advance, assemblers);
+        }
+        merge.whenFinished().thenRunAsync(() -> {
+            if (!merge.isAborted()) return;
+            // a cancelled or timed-out merge stops its parts and drops what was assembled
+            assembly.advance();
+            converterService.discard(merge.getStoredFile());
+        }, assemblers);
+        log.info("Merging {} parts as job {}", parts.size(), merge.getId());
+        return merge;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        assemblers.shutdownNow();
+    }
+
+    /**
+     * Appends finished parts in order. Called once per finished part; each call appends
+     * every part that has become next in line. Once the merge fails or is aborted, the
+     * parts are of no further use, as the client retries the whole merge.
+     */
+    private class Assembly {
+        private final ConversionJob merge;
+        private final List<ConversionJob> parts;
+        private PdfOutputFactory.PdfOutput output;
+        private MergedPdfWriter writer;
+        private int next;
+        private boolean abandoned;
+
+        Assembly(ConversionJob merge, List<ConversionJob> parts) {
+            this.merge = merge;
+            this.parts = parts;
+        }
+
+        synchronized void advance() {
+            Path dest = merge.getStoredFile().getPdfPath();
+            Path partial = dest.resolveSibling(dest.getFileName() + ".part");
+            if (merge.isFinished()) {
+                if (merge.getStatus() != JobStatus.COMPLETED) abandon(partial);
+                return;
+            }
+            try {
+                while (next < parts.size() && parts.get(next).isFinished()) {
+                    ConversionJob part = parts.get(next);
+                    if (part.getStatus() != JobStatus.COMPLETED) {
+                        fail("Part " + (next + 1) + " (" + part.getStoredFile().getOriginalFilename() + ") "
+                                + part.getStatus().name().toLowerCase() + ": " + part.getError(), partial);
+                        return;
+                    }
+                    if (writer == null) {
+                        output = outputs.open(maxMainMemory);
+                        writer = new MergedPdfWriter(output.getMemoryUsageSetting());
+                    }
+                    writer.append(part.getStoredFile().getPdfPath().toFile());
+                    next++;
+                }
+                if (next < parts.size()) return;
+
+                File out = partial.toFile();
+                writer.save(out);
+                int pages = writer.getPageCount();
+                int deduplicated = writer.getDeduplicatedStreams();
+                writer.close();
+                writer = null;
+                output.close();
+                output = null;
+                Files.move(partial, dest, StandardCopyOption.ATOMIC_MOVE);
+                converterService.recordOutput(merge.getStoredFile());
+                merge.markCompleted();
+                log.info("Merged job {}: {} parts, {} pages, {} shared streams", merge.getId(), parts.size(), pages, deduplicated);
+            } catch (IOException | RuntimeException e) {
+                log.error("Merge {} failed: {}", merge.getId(), e.getMessage(), e);
+                fail(e.getMessage(), partial);
+            }
+        }
+
+        private void fail(String message, Path partial) {
+            merge.markFailed(message);
+            abandon(partial);
+        }
+
+        /**
+         * Drop what was assembled, cancel the parts still queued or converting (the job
+         * service discards their files) and discard the files of parts already finished.
+         */
+        private void abandon(Path partial) {
+            try {
+                if (writer != null) writer.close();
+                Files.deleteIfExists(partial);
+            } catch (IOException e) {
+                log.warn("Failed to clean up merge {}: {}", merge.getId(), e.getMessage());
+            }
+            writer = null;
+            if (output != null) output.close();
+            output = null;
+            if (abandoned) return;
+            abandoned = true;
+            for (ConversionJob part : parts) {
+                if (!jobService.cancel(part)) converterService.discard(part.getStoredFile());
+            }
+        }
+    }
+}
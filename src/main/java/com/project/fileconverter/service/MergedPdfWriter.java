@@ -0,0 +1,180 @@
+package com.project.fileconverter.service;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+
+/**
+ * Appends converted parts to one PDF, in order, as they become available.
+ * <p>
+ * The merged document is backed by a PDFBox scratch file within the given memory
+ * setting. Parts are read from their files and given scratch space on disk only, so the
+ * heap used does not grow with the number of parts. Parts stay open until the merged
+ * document is saved, as PDFBox's merge utility requires. After each append, image XObjects and embedded font programs
+ * whose bytes match a stream already in the document are pointed at that earlier stream,
+ * so a logo or font used by several parts is written once.
+ */
+class MergedPdfWriter implements Closeable {
+
+    private static final COSName[] FONT_FILES = {COSName.FONT_FILE, COSName.FONT_FILE2, COSName.FONT_FILE3};
+    /** Dictionary entries that together with the data identify an image. */
+    private static final COSName[] IMAGE_KEYS = {COSName.WIDTH, COSName.HEIGHT, COSName.BITS_PER_COMPONENT,
+            COSName.COLORSPACE, COSName.FILTER, COSName.DECODE_PARMS, COSName.DECODE, COSName.IMAGE_MASK};
+    private static final int MAX_FORM_DEPTH = 8;
+
+    private final PDDocument merged;
+    private final PDFMergerUtility merger = new PDFMergerUtility();
+    private final List<PDDocument> parts = new ArrayList<>();
+    private final Map<String, COSStream> canonical = new HashMap<>();
+    private final Set<COSStream> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int deduplicated;
+
+    MergedPdfWriter(MemoryUsageSetting memory) {
+        this.merged = new PDDocument(memory);
+    }
+
+    void append(File part) throws IOException {
+        PDDocument doc = PDDocument.load(part, MemoryUsageSetting.setupTempFileOnly());
+        parts.add(doc);
+        int before = merged.getNumberOfPages();
+        merger.appendDocument(merged, doc);
+        for (int i = before; i < merged.getNumberOfPages(); i++) {
+            PDPage page = merged.getPage(i);
+            deduplicate(dictionary(page.getCOSObject(), COSName.RESOURCES), 0);
+        }
+    }
+
+    int getPageCount() {
+        return merged.getNumberOfPages();
+    }
+
+    int getDeduplicatedStreams() {
+        return deduplicated;
+    }
+
+    void save(File dest) throws IOException {
+        merged.save(dest);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (PDDocument doc : parts) {
+            try {
+                doc.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        merged.close();
+        if (failure != null) throw failure;
+    }
+
+    private void deduplicate(COSDictionary resources, int depth) throws IOException {
+        if (resources == null || depth > MAX_FORM_DEPTH) return;
+        COSDictionary xobjects = dictionary(resources, COSName.XOBJECT);
+        if (xobjects != null) {
+            for (COSName name : xobjects.keySet()) {
+                if (!(xobjects.getDictionaryObject(name) instanceof COSStream stream)) continue;
+                if (COSName.IMAGE.equals(stream.getCOSName(COSName.SUBTYPE))) {
+                    // soft masks are separate streams; keep such images as they are
+                    if (stream.containsKey(COSName.SMASK) || stream.containsKey(COSName.MASK)) continue;
+                    COSStream same = canonical(stream, "image", IMAGE_KEYS);
+                    if (same != stream) replace(xobjects, name, same);
+                } else if (COSName.FORM.equals(stream.getCOSName(COSName.SUBTYPE)) && visited.add(stream)) {
+                    deduplicate(dictionary(stream, COSName.RESOURCES), depth + 1);
+                }
+            }
+        }
+        COSDictionary fonts = dictionary(resources, COSName.FONT);
+        if (fonts != null) {
+            for (COSName name : fonts.keySet()) {
+                if (fonts.getDictionaryObject(name) instanceof COSDictionary font) {
+                    deduplicateFont(font);
+                }
+            }
+        }
+    }
+
+    private void deduplicateFont(COSDictionary font) throws IOException {
+        COSDictionary descriptor = dictionary(font, COSName.FONT_DESC);
+        if (descriptor == null) {
+            // Type 0 fonts keep the descriptor on their descendant
+            COSBase descendants = font.getDictionaryObject(COSName.DESCENDANT_FONTS);
+            if (descendants instanceof COSArray array && array.size() > 0
+                    && array.getObject(0) instanceof COSDictionary child) {
+                descriptor = dictionary(child, COSName.FONT_DESC);
+            }
+        }
+        if (descriptor == null) return;
+        for (COSName key : FONT_FILES) {
+            if (descriptor.getDictionaryObject(key) instanceof COSStream program) {
+                COSStream same = canonical(program, key.getName(), COSName.SUBTYPE, COSName.LENGTH1,
+                        COSName.LENGTH2, COSName.LENGTH3, COSName.FILTER);
+                if (same != program) replace(descriptor, key, same);
+            }
+        }
+    }
+
+    /**
+     * @return the first stream seen with the same kind, identifying entries and raw data
+     */
+    private COSStream canonical(COSStream stream, String kind, COSName... keys) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(kind.getBytes(StandardCharsets.US_ASCII));
+        for (COSName key : keys) {
+            COSBase value = stream.getDictionaryObject(key);
+            digest.update((key.getName() + "=" + (value != null ? value.toString() : "") + ";").getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] buffer = new byte[8192];
+        try (InputStream raw = stream.createRawInputStream()) {
+            int n;
+            while ((n = raw.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return canonical.computeIfAbsent(HexFormat.of().formatHex(digest.digest()), k -> stream);
+    }
+
+    private void replace(COSDictionary dict, COSName key, COSStream stream) {
+        COSBase current = dict.getItem(key);
+        if (current instanceof COSObject ref && ref.getObject() == stream) return;
+        dict.setItem(key, stream);
+        deduplicated++;
+    }
+
+    private static COSDictionary dictionary(COSDictionary dict, COSName key) {
+        return dict.getDictionaryObject(key) instanceof COSDictionary d ? d : null;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
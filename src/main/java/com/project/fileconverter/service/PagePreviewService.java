@@ -0,0 +1,354 @@
+package com.project.fileconverter.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Renders single pages of converted PDFs to images for thumbnails and previews.
+ * <p>
+ * Only the requested page is rendered, with the document backed by a scratch file.
+ * Pages whose image would exceed {@code conversion.preview.max-pixels} at the requested
+ * resolution are rendered at the highest resolution that fits instead, so an oversized
+ * MediaBox cannot exhaust the heap.
+ * Rendered images are kept in {@code storageDir/previews}, sharded by id prefix,
+ * and evicted least recently used first once they exceed {@code conversion.preview.cache-size}.
+ * The cache order is rebuilt from modification times at startup. An image evicted while
+ * it is being served is rendered again, and the previews of a file are purged when the
+ * file expires.
+ * <p>
+ * Rendering is CPU-bound, so it runs on a small pool of platform threads of its own,
+ * {@code conversion.preview.threads}; the request thread only waits for the result.
+ * Previews are interactive and must not queue behind slide or text chunks on the
+ * converters' render pool.
+ */
+@Service
+public class PagePreviewService {
+
+    private static final Logger log = LoggerFactory.getLogger(PagePreviewService.class);
+
+    /** Image formats offered for previews, where ImageIO can write them. */
+    private static final List<String> CANDIDATE_FORMATS = List.of("png", "jpeg", "webp");
+
+    private final ConverterService converterService;
+    private final ExecutorService renderer;
+    private final Path previewDir;
+    private final long maxCacheBytes;
+    private final int maxDpi;
+    private final long maxPixels;
+    private final List<String> formats;
+    private final Map<Path, Long> cached = new LinkedHashMap<>(256, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long cachedBytes;
+
+    public PagePreviewService(ConverterService converterService,
+                              @Value("${file.storage.location:storage}") String storageLocation,
+                              @Value("${conversion.preview.cache-size:256MB}") DataSize cacheSize,
+                              @Value("${conversion.preview.max-dpi:300}") int maxDpi,
+                              @Value("${conversion.preview.max-pixels:25000000}") long maxPixels,
+                              @Value("${conversion.preview.threads:2}") int threads) throws IOException {
+        this.converterService = converterService;
+        this.previewDir = Paths.get(storageLocation).toAbsolutePath().resolve("previews");
+        this.maxCacheBytes = cacheSize.toBytes();
+        this.maxDpi = maxDpi;
+        this.maxPixels = maxPixels;
+        this.formats = CANDIDATE_FORMATS.stream().filter(PagePreviewService::supportsFormat).toList();
+        Files.createDirectories(previewDir);
+        loadCache();
+        AtomicInteger counter = new AtomicInteger();
+        this.renderer = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "preview-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public int getMaxDpi() {
+        return maxDpi;
+    }
+
+    /**
+     * @return the formats pages can be rendered as: png and jpeg, and webp when an ImageIO
+     *         WebP plugin is on the classpath
+     */
+    public List<String> getFormats() {
+        return formats;
+    }
+
+    /**
+     * @return true if images can be written in {@code format}
+     */
+    private static boolean supportsFormat(String format) {
+        return ImageIO.getImageWritersByFormatName(format).hasNext();
+    }
+
+    /**
+     * Image of one page of a converted file, rendered on first request. Its size and
+     * modification time are fixed when it is returned; if another render evicts the file
+     * before the image is read, reading renders the page again, to the same bytes.
+     * @param page 1-based page number
+     * @return the image, or null if the PDF or the page does not exist
+     * @throws PreviewTooLargeException if the page exceeds the pixel limit even at 1 dpi
+     */
+    public Resource renderPage(String id, int page, int dpi, String format) throws IOException {
+        if (page < 1) return null;
+        Path image = previewPath(id, page, dpi, format);
+        // a render can be evicted again before it is opened when the cache is very busy
+        for (int attempt = 0; attempt < 3; attempt++) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(image, BasicFileAttributes.class);
+                touch(image);
+                return new PageImage(image, id, page, dpi, format, attrs);
+            } catch (NoSuchFileException e) {
+                if (!renderCached(id, page, dpi, format, image)) return null;
+            }
+        }
+        throw new IOException("Page " + page + " of " + id + " was evicted from the preview cache before it could be served");
+    }
+
+    /**
+     * Remove every cached image of a file, e.g. once the file has expired.
+     */
+    public void purge(String id) {
+        String prefix = id + "-p";
+        Path shard = previewPath(id, 1, 1, "png").getParent();
+        List<Path> purged = new ArrayList<>();
+        lock.lock();
+        try {
+            Iterator<Map.Entry<Path, Long>> entries = cached.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<Path, Long> e = entries.next();
+                if (e.getKey().getParent().equals(shard) && e.getKey().getFileName().toString().startsWith(prefix)) {
+                    purged.add(e.getKey());
+                    cachedBytes -= e.getValue();
+                    entries.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        delete(purged);
+    }
+
+    /**
+     * Render a page into the cache on the preview pool.
+     * @return false if the PDF or the page does not exist
+     */
+    private boolean renderCached(String id, int page, int dpi, String format, Path image) throws IOException {
+        Path pdf = converterService.getPdfPath(id);
+        if (pdf == null) return false;
+        Future<Boolean> task = renderer.submit(() -> render(pdf, page, dpi, format, image));
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rendering page " + page + " of " + id);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IOException("Failed to render page " + page + " of " + id, e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderer.shutdownNow();
+    }
+
+    /**
+     * @return false if the document has fewer pages
+     */
+    private boolean render(Path pdf, int page, int dpi, String format, Path image) throws IOException {
+        BufferedImage rendered;
+        try (PDDocument doc = PDDocument.load(pdf.toFile(), MemoryUsageSetting.setupTempFileOnly())) {
+            if (page > doc.getNumberOfPages()) return false;
+            int fitted = fitDpi(doc.getPage(page - 1).getCropBox(), dpi);
+            if (fitted < 1) throw new PreviewTooLargeException("Page " + page + " is too large to preview");
+            if (fitted < dpi) {
+                log.debug("Rendering page {} of {} at {} dpi instead of {}", page, pdf.getFileName(), fitted, dpi);
+            }
+            ImageType type = "png".equals(format) ? ImageType.ARGB : ImageType.RGB;
+            rendered = new PDFRenderer(doc).renderImageWithDPI(page - 1, fitted, type);
+        }
+        Files.createDirectories(image.getParent());
+        // unique per render, as the same page may be requested twice at once
+        Path partial = Files.createTempFile(image.getParent(), image.getFileName().toString(), ".part");
+        try {
+            if (!ImageIO.write(rendered, format, partial.toFile())) {
+                throw new IOException("No image writer for " + format);
+            }
+            Files.move(partial, image, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        add(image, Files.size(image));
+        return true;
+    }
+
+    /**
+     * Highest resolution up to {@code dpi} at which the page stays within max-pixels;
+     * below 1 if none does.
+     */
+    private int fitDpi(PDRectangle box, int dpi) {
+        double inches = Math.abs((double) box.getWidth() * box.getHeight()) / (72.0 * 72.0);
+        double pixels = inches * dpi * dpi;
+        if (pixels <= maxPixels) return dpi;
+        return (int) Math.floor(Math.sqrt(maxPixels / inches));
+    }
+
+    private Path previewPath(String id, int page, int dpi, String format) {
+        String shard = id.length() >= 2 ? id.substring(0, 2) : "_";
+        return previewDir.resolve(shard).resolve(id + "-p" + page + "-" + dpi + "dpi." + format);
+    }
+
+    private void touch(Path image) {
+        lock.lock();
+        try {
+            cached.get(image);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void add(Path image, long size) {
+        List<Path> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            Long previous = cached.put(image, size);
+            if (previous != null) cachedBytes -= previous;
+            cachedBytes += size;
+            Iterator<Map.Entry<Path, Long>> eldest = cached.entrySet().iterator();
+            while (cachedBytes > maxCacheBytes && eldest.hasNext()) {
+                Map.Entry<Path, Long> e = eldest.next();
+                if (e.getKey().equals(image)) continue;
+                evicted.add(e.getKey());
+                cachedBytes -= e.getValue();
+                eldest.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+        delete(evicted);
+    }
+
+    private static void delete(List<Path> images) {
+        for (Path p : images) {
+            try {
+                Files.deleteIfExists(p);
+            } catch (IOException e) {
+                log.warn("Failed to evict preview {}: {}", p.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    private void loadCache() throws IOException {
+        record Cached(Path path, long size, long modified) {
+        }
+        List<Cached> found = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(previewDir, 2)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+                if (!attrs.isRegularFile()) continue;
+                if (p.getFileName().toString().endsWith(".part")) {
+                    Files.deleteIfExists(p);
+                    continue;
+                }
+                found.add(new Cached(p, attrs.size(), attrs.lastModifiedTime().toMillis()));
+            }
+        }
+        found.sort(Comparator.comparingLong(Cached::modified));
+        for (Cached c : found) {
+            add(c.path(), c.size());
+        }
+    }
+
+    /**
+     * A cached page image served from disk. The size and modification time seen when it
+     * was looked up are kept, so response headers do not depend on the file still being
+     * there; a page evicted in the meantime is rendered again when it is read.
+     */
+    private final class PageImage extends FileSystemResource {
+        private final String id;
+        private final int page;
+        private final int dpi;
+        private final String format;
+        private final long size;
+        private final long lastModified;
+
+        PageImage(Path image, String id, int page, int dpi, String format, BasicFileAttributes attrs) {
+            super(image);
+            this.id = id;
+            this.page = page;
+            this.dpi = dpi;
+            this.format = format;
+            this.size = attrs.size();
+            this.lastModified = attrs.lastModifiedTime().toMillis();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            try {
+                return Files.newInputStream(getFile().toPath());
+            } catch (NoSuchFileException e) {
+                // rendering is deterministic, so the new file matches the headers already sent
+                if (!renderCached(id, page, dpi, format, getFile().toPath())) throw e;
+                return Files.newInputStream(getFile().toPath());
+            }
+        }
+
+        @Override
+        public ReadableByteChannel readableChannel() throws IOException {
+            return Channels.newChannel(getInputStream());
+        }
+
+        @Override
+        public long contentLength() {
+            return size;
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.project.fileconverter.service;
+
+/**
+ * Thrown when a page is too large to render as a preview at any resolution.
+ */
+public class PreviewTooLargeException extends RuntimeException {
+
+    public PreviewTooLargeException(String message) {
+        super(message);
+    }
+}
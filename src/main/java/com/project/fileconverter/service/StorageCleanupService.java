@@ -14,39 +14,87 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+/**
+ * Deletes stored files once they expire. Expired entries come from the {@link StorageIndex}
+ * in expiry order, and only the cache blobs released by removed entries are checked, so
+ * the cost follows the number of files removed rather than stored. The first run after
+ * startup also walks the whole cache, to catch blobs whose release was lost with the
+ * previous process. Page previews of an expired file are purged with it.
+ */
 @Component
 public class StorageCleanupService {
 
     private static final Logger log = LoggerFactory.getLogger(StorageCleanupService.class);
     private final Path storageDir;
     private final long retentionDays;
+    private final ConversionCache cache;
+    private final StorageIndex index;
+    private final PagePreviewService previews;
+    private boolean cacheSwept;
 
     public StorageCleanupService(@Value("${file.storage.location:storage}") String storageLocation,
-                                 @Value("${file.storage.retention-days:1}") long retentionDays) {
+                                 @Value("${file.storage.retention-days:1}") long retentionDays,
+                                 ConversionCache cache,
+                                 StorageIndex index,
+                                 PagePreviewService previews) {
         this.storageDir = Paths.get(storageLocation).toAbsolutePath();
         this.retentionDays = retentionDays;
+        this.cache = cache;
+        this.index = index;
+        this.previews = previews;
     }
 
     @Scheduled(fixedDelayString = "PT6H") // every 6 hours
     public void pruneOldFiles() {
         try {
             if (!Files.exists(storageDir)) return;
-            Instant cutoff = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
-            try (DirectoryStream<Path> ds = Files.newDirectoryStream(storageDir)) {
-                for (Path p : ds) {
-                    try {
-                        Instant m = Files.getLastModifiedTime(p).toInstant();
-                        if (m.isBefore(cutoff)) {
-                            Files.deleteIfExists(p);
-                            log.info("Deleted old storage file {}", p.getFileName());
-                        }
-                    } catch (IOException ex) {
-                        log.warn("Failed to check/delete {}: {}", p, ex.getMessage());
-                    }
+            Instant now = Instant.now();
+            for (StorageIndex.Entry e : index.expired(now)) {
+                try {
+                    Path dir = storageDir.resolve(e.original()).getParent();
+                    Files.deleteIfExists(storageDir.resolve(e.original()));
+                    Files.deleteIfExists(storageDir.resolve(e.pdf()));
+                    Files.deleteIfExists(dir.resolve(e.id() + "-upload.part"));
+                    Files.deleteIfExists(dir.resolve(e.id() + ".pdf.part"));
+                    index.remove(e.id());
+                    previews.purge(e.id());
+                    log.info("Deleted expired stored file {}", e.id());
+                } catch (IOException ex) {
+                    log.warn("Failed to delete {}: {}", e.id(), ex.getMessage());
                 }
             }
+            Instant cutoff = now.minus(retentionDays, ChronoUnit.DAYS);
+            pruneLegacyFiles(cutoff);
+            // Drop cache blobs whose last upload link was just removed
+            if (cacheSwept) {
+                cache.prune(index.takeReleasedBlobs(), cutoff);
+            } else {
+                index.takeReleasedBlobs();
+                cache.pruneAll(cutoff);
+                cacheSwept = true;
+            }
         } catch (Exception e) {
             log.warn("Storage cleanup failed: {}", e.getMessage());
         }
     }
+
+    /**
+     * Remove files left at the top level by the flat layout used before sharding.
+     */
+    private void pruneLegacyFiles(Instant cutoff) throws IOException {
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(storageDir, Files::isRegularFile)) {
+            for (Path p : ds) {
+                if (p.getFileName().toString().startsWith("index.log")) continue;
+                try {
+                    Instant m = Files.getLastModifiedTime(p).toInstant();
+                    if (m.isBefore(cutoff)) {
+                        Files.deleteIfExists(p);
+                        log.info("Deleted old storage file {}", p.getFileName());
+                    }
+                } catch (IOException ex) {
+                    log.warn("Failed to check/delete {}: {}", p, ex.getMessage());
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,318 @@
+package com.project.fileconverter.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Sharded on-disk layout for stored files, with an index from file id to its paths,
+ * size and expiry.
+ * <p>
+ * Files live under {@code storageDir/files/<aa>/<bb>/}, where {@code aa} and {@code bb}
+ * are the first characters of the (random) id, so no directory grows beyond a few thousand
+ * entries. The index is held in memory and persisted as an append-only log,
+ * {@code storageDir/index.log}, of {@code put} and {@code remove} records that is replayed
+ * on startup and compacted once most of its records are stale. Lookups are a map access,
+ * and cleanup takes entries from an expiry-ordered set instead of listing directories.
+ * <p>
+ * Entries also list the {@link ConversionCache} blobs their files are linked to. Removing
+ * an entry releases those blobs as candidates for {@link ConversionCache#prune}, so the
+ * cache is cleaned without walking it; the candidates are held in memory only.
+ * <p>
+ * The total size of all entries is kept up to date as entries are recorded and removed,
+ * so storage usage can be reported without listing any directory.
+ * <p>
+ * Log writes are guarded by a {@link ReentrantLock} rather than {@code synchronized}, so
+ * request handlers on virtual threads do not pin their carrier thread while appending.
+ */
+@Component
+public class StorageIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageIndex.class);
+
+    private static final String PUT = "P";
+    private static final String REMOVE = "R";
+    private static final String BLOB_SEPARATOR = "|";
+    private static final String LOG_FILE = "index.log";
+    private static final int MIN_COMPACT_RECORDS = 10_000;
+
+    private final Path storageDir;
+    private final Path filesDir;
+    private final Path logPath;
+    private final Duration retention;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> byExpiry = new ConcurrentSkipListSet<>(
+            Comparator.comparing(Entry::expiresAt).thenComparing(Entry::id));
+    private final Set<String> releasedBlobs = ConcurrentHashMap.newKeySet();
+    private final AtomicLong totalSize = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    private BufferedWriter writer;
+    private long records;
+
+    /**
+     * One stored file. Paths, including those of the cache blobs it links to, are relative
+     * to the storage directory.
+     */
+    public record Entry(String id, String original, String pdf, long size, Instant expiresAt, List<String> blobs) {
+    }
+
+    public StorageIndex(@Value("${file.storage.location:storage}") String storageLocation,
+                        @Value("${file.storage.retention-days:1}") long retentionDays) throws IOException {
+        this.storageDir = Paths.get(storageLocation).toAbsolutePath();
+        this.filesDir = storageDir.resolve("files");
+        this.logPath = storageDir.resolve(LOG_FILE);
+        this.retention = Duration.ofDays(retentionDays);
+        Files.createDirectories(filesDir);
+        replay();
+        if (records > MIN_COMPACT_RECORDS && records > 2L * entries.size()) {
+            rewrite();
+        }
+        this.writer = openLog();
+    }
+
+    /**
+     * Directory holding the files of {@code id}, created on demand.
+     */
+    public Path directoryFor(String id) throws IOException {
+        Path dir = filesDir.resolve(shard(id, 0)).resolve(shard(id, 2));
+        Files.createDirectories(dir);
+        return dir;
+    }
+
+    /**
+     * Record a stored file, or update its size. The expiry and linked blobs are kept from
+     * earlier records.
+     */
+    public void put(String id, Path original, Path pdf, long size) throws IOException {
+        lock.lock();
+        try {
+            Entry previous = entries.get(id);
+            Instant expiresAt = previous != null ? previous.expiresAt() : Instant.now().plus(retention);
+            List<String> blobs = previous != null ? previous.blobs() : List.of();
+            write(new Entry(id, relative(original), relative(pdf), size, expiresAt, blobs));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record that a file of {@code id} is linked to the cache blob {@code blob}.
+     */
+    public void addBlob(String id, Path blob) throws IOException {
+        String relativeBlob = relative(blob);
+        lock.lock();
+        try {
+            Entry e = entries.get(id);
+            if (e == null || e.blobs().contains(relativeBlob)) return;
+            List<String> blobs = new ArrayList<>(e.blobs());
+            blobs.add(relativeBlob);
+            write(new Entry(id, e.original(), e.pdf(), e.size(), e.expiresAt(), List.copyOf(blobs)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(String id) throws IOException {
+        lock.lock();
+        try {
+            Entry e = entries.get(id);
+            if (e != null) {
+                append(REMOVE + "\t" + id);
+                unindex(id);
+                releasedBlobs.addAll(e.blobs());
+            }
+        } finally {
+            lock.unlock();
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Blobs linked to entries removed since the last call; some may still be linked to
+     * other entries.
+     */
+    public List<Path> takeReleasedBlobs() {
+        List<Path> result = new ArrayList<>();
+        for (String blob : releasedBlobs) {
+            if (releasedBlobs.remove(blob)) result.add(storageDir.resolve(blob));
+        }
+        return result;
+    }
+
+    public Entry get(String id) {
+        return entries.get(id);
+    }
+
+    public Path getOriginalPath(String id) {
+        Entry e = entries.get(id);
+        return e != null ? storageDir.resolve(e.original()) : null;
+    }
+
+    public Path getPdfPath(String id) {
+        Entry e = entries.get(id);
+        return e != null ? storageDir.resolve(e.pdf()) : null;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Combined size of all entries. Files hard-linked to a shared cache blob count once
+     * for every entry linking them.
+     */
+    public long totalSize() {
+        return totalSize.get();
+    }
+
+    /**
+     * Entries that expired before {@code now}, oldest first.
+     */
+    public List<Entry> expired(Instant now) {
+        List<Entry> result = new ArrayList<>();
+        for (Entry e : byExpiry) {
+            if (!e.expiresAt().isBefore(now)) break;
+            result.add(e);
+        }
+        return result;
+    }
+
+    /**
+     * Rewrite the log with only live entries once stale records dominate it.
+     */
+    public void compactIfNeeded() throws IOException {
+        lock.lock();
+        try {
+            if (records <= MIN_COMPACT_RECORDS || records <= 2L * entries.size()) return;
+            writer.close();
+            rewrite();
+            writer = openLog();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            writer.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void replay() throws IOException {
+        if (!Files.exists(logPath)) return;
+        try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                records++;
+                String[] f = line.split("\t");
+                if ((f.length == 6 || f.length == 7) && PUT.equals(f[0])) {
+                    // records written before blobs were tracked have six fields
+                    List<String> blobs = f.length == 7 ? parseBlobs(f[6]) : List.of();
+                    try {
+                        index(new Entry(f[1], f[2], f[3], Long.parseLong(f[4]), Instant.ofEpochMilli(Long.parseLong(f[5])), blobs));
+                    } catch (NumberFormatException e) {
+                        log.warn("Skipping malformed index record: {}", line);
+                    }
+                } else if (f.length == 2 && REMOVE.equals(f[0])) {
+                    unindex(f[1]);
+                } else {
+                    // most likely a record torn by a crash mid-write
+                    log.warn("Skipping malformed index record: {}", line);
+                }
+            }
+        }
+        log.info("Loaded {} stored files from {}", entries.size(), logPath);
+    }
+
+    private void rewrite() throws IOException {
+        Path tmp = logPath.resolveSibling(LOG_FILE + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Entry e : entries.values()) {
+                out.write(record(e));
+                out.newLine();
+            }
+        }
+        Files.move(tmp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Compacted storage index from {} to {} records", records, entries.size());
+        records = entries.size();
+    }
+
+    private BufferedWriter openLog() throws IOException {
+        return Files.newBufferedWriter(logPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    }
+
+    private void write(Entry entry) throws IOException {
+        append(record(entry));
+        index(entry);
+    }
+
+    private static String record(Entry e) {
+        String record = PUT + "\t" + e.id() + "\t" + e.original() + "\t" + e.pdf() + "\t" + e.size() + "\t" + e.expiresAt().toEpochMilli();
+        return e.blobs().isEmpty() ? record : record + "\t" + String.join(BLOB_SEPARATOR, e.blobs());
+    }
+
+    private static List<String> parseBlobs(String field) {
+        return field.isEmpty() ? List.of() : List.copyOf(Arrays.asList(field.split("\\" + BLOB_SEPARATOR)));
+    }
+
+    private void append(String record) throws IOException {
+        writer.write(record);
+        writer.newLine();
+        writer.flush();
+        records++;
+    }
+
+    private void index(Entry entry) {
+        Entry previous = entries.put(entry.id(), entry);
+        if (previous != null) byExpiry.remove(previous);
+        byExpiry.add(entry);
+        totalSize.addAndGet(entry.size() - (previous != null ? previous.size() : 0));
+    }
+
+    private void unindex(String id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            byExpiry.remove(previous);
+            totalSize.addAndGet(-previous.size());
+        }
+    }
+
+    private String relative(Path path) {
+        return storageDir.relativize(path.toAbsolutePath()).toString();
+    }
+
+    private static String shard(String id, int offset) {
+        return id.length() >= offset + 2 ? id.substring(offset, offset + 2) : "_";
+    }
+}
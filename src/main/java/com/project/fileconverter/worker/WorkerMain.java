@@ -0,0 +1,80 @@
+package com.project.fileconverter.worker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+
+import com.project.fileconverter.converter.ConverterRegistry;
+import com.project.fileconverter.converter.PdfConverter;
+
+/**
+ * Entry point of a converter worker process started by {@link WorkerProcessPool}.
+ * <p>
+ * Loads only the converter package (no web server, storage or job queue) and then
+ * serves {@link WorkerProtocol} requests from stdin until stdin is closed. stdout is
+ * reserved for protocol replies; anything libraries print goes to stderr instead.
+ */
+public final class WorkerMain {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerMain.class);
+
+    /**
+     * Context root for the worker. Deliberately not a {@code @Configuration} so the
+     * application's own component scan does not pick it up.
+     */
+    @ComponentScan(basePackageClasses = PdfConverter.class)
+    static class WorkerContext {
+    }
+
+    private WorkerMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        PrintStream replies = new PrintStream(new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8);
+        System.setOut(System.err);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(WorkerContext.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run(args)) {
+            ConverterRegistry converters = context.getBean(ConverterRegistry.class);
+            replies.println(WorkerProtocol.READY);
+
+            BufferedReader requests = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = requests.readLine()) != null) {
+                replies.println(handle(line, converters));
+            }
+        }
+    }
+
+    private static String handle(String line, ConverterRegistry converters) {
+        String[] request = line.split("\t", -1);
+        if (request.length != 5 || !WorkerProtocol.CONVERT.equals(request[0])) {
+            return WorkerProtocol.ERROR + "\tMalformed request";
+        }
+        PdfConverter converter = converters.get(request[1]);
+        if (converter == null) {
+            return WorkerProtocol.ERROR + "\tUnknown converter " + request[1];
+        }
+        try {
+            converter.convert(new File(request[2]), new File(request[3]), WorkerProtocol.options(request));
+            return WorkerProtocol.OK;
+        } catch (Exception | LinkageError e) {
+            log.error("Conversion of {} failed", request[2], e);
+            return WorkerProtocol.error(e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.project.fileconverter.worker;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.project.fileconverter.model.ConversionOptions;
+
+/**
+ * One converter worker JVM. Replies are read on a dedicated thread and handed over
+ * through a queue, so a request can be abandoned after its timeout and the process
+ * killed. Not thread-safe: the pool hands a worker to one caller at a time.
+ */
+class WorkerProcess {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerProcess.class);
+
+    /** Queued by the reader thread once the worker's stdout closes. */
+    private static final String EXITED = "\u0000exited";
+
+    private final int number;
+    private final Process process;
+    private final BufferedWriter requests;
+    private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+    private boolean ready;
+    private int jobs;
+    private volatile boolean killed;
+
+    WorkerProcess(int number, List<String> command) throws IOException {
+        this.number = number;
+        this.process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        this.requests = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        Thread reader = new Thread(this::readReplies, "conversion-worker-process-" + number + "-reader");
+        reader.setDaemon(true);
+        reader.start();
+        log.info("Started converter worker {} (pid {})", number, process.pid());
+    }
+
+    int getJobs() {
+        return jobs;
+    }
+
+    /**
+     * False as soon as the worker has been killed, even while the process is still exiting.
+     */
+    boolean isAlive() {
+        return !killed && process.isAlive();
+    }
+
+    /**
+     * Run one conversion in the worker, killing it if no reply arrives within {@code timeout}.
+     * @throws IOException if the conversion fails, the worker dies or the timeout passes
+     */
+    void convert(String converter, File source, File dest, ConversionOptions options,
+                 Duration startupTimeout, Duration timeout) throws IOException {
+        try {
+            if (!ready) {
+                String hello = await(startupTimeout, "start");
+                if (!WorkerProtocol.READY.equals(hello)) {
+                    throw new IOException("Converter worker " + number + " failed to start");
+                }
+                ready = true;
+            }
+            jobs++;
+            requests.write(WorkerProtocol.request(converter, source, dest, options));
+            requests.newLine();
+            requests.flush();
+            String reply = await(timeout, "convert " + source.getName());
+            if (WorkerProtocol.OK.equals(reply)) return;
+            if (reply.startsWith(WorkerProtocol.ERROR + "\t")) {
+                throw new IOException(reply.substring(WorkerProtocol.ERROR.length() + 1));
+            }
+            throw new IOException("Unexpected reply from converter worker " + number + ": " + reply);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            kill();
+            throw new InterruptedIOException("Interrupted while converting " + source.getName());
+        } catch (IOException e) {
+            if (!process.isAlive()) kill();
+            throw e;
+        }
+    }
+
+    /**
+     * Ask the worker to exit once idle by closing its stdin, killing it if it lingers.
+     */
+    void retire() {
+        try {
+            requests.close();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) kill();
+        } catch (IOException e) {
+            kill();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            kill();
+        }
+    }
+
+    void kill() {
+        killed = true;
+        process.destroyForcibly();
+    }
+
+    private String await(Duration timeout, String what) throws IOException, InterruptedException {
+        String reply = replies.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        if (reply == null) {
+            kill();
+            throw new IOException("Converter worker " + number + " timed out after " + timeout + " (" + what + ")");
+        }
+        if (EXITED.equals(reply)) {
+            kill();
+            throw new IOException("Converter worker " + number + " exited during " + what
+                    + (process.isAlive() ? "" : " with status " + process.exitValue()));
+        }
+        return reply;
+    }
+
+    private void readReplies() {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                replies.add(line);
+            }
+        } catch (IOException e) {
+            log.debug("Converter worker {} output closed: {}", number, e.getMessage());
+        }
+        replies.add(EXITED);
+    }
+}
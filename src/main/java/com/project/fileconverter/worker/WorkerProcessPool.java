@@ -0,0 +1,180 @@
+package com.project.fileconverter.worker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.project.fileconverter.converter.ConverterRegistry;
+import com.project.fileconverter.converter.PdfConverter;
+import com.project.fileconverter.model.ConversionOptions;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional pool of pre-started converter JVMs ({@link WorkerMain}), enabled with
+ * {@code conversion.isolation.enabled}. Each worker has its own heap cap and exits on
+ * OutOfMemoryError, so a document that leaks, hangs or blows the heap costs one worker
+ * rather than the application. Workers are killed when a job passes its deadline, the
+ * job's {@code conversion.timeouts.*} for queued jobs and {@code conversion.isolation.timeout}
+ * for conversions without one. They are replaced when they die, and recycled after a
+ * fixed number of jobs to shed leaks.
+ */
+@Component
+public class WorkerProcessPool {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerProcessPool.class);
+
+    private static final String LAUNCHER = "org.springframework.boot.loader.launch.PropertiesLauncher";
+
+    private final boolean enabled;
+    private final int jobsPerWorker;
+    private final Duration startupTimeout;
+    private final Duration timeout;
+    private final List<String> command;
+    private final BlockingQueue<WorkerProcess> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger counter = new AtomicInteger();
+    private volatile boolean closed;
+
+    @Autowired
+    public WorkerProcessPool(@Value("${conversion.isolation.enabled:false}") boolean enabled,
+                             @Value("${conversion.isolation.workers:0}") int workers,
+                             @Value("${conversion.isolation.heap:512m}") String heap,
+                             @Value("${conversion.isolation.jvm-args:}") List<String> jvmArgs,
+                             @Value("${conversion.isolation.jobs-per-worker:50}") int jobsPerWorker,
+                             @Value("${conversion.isolation.startup-timeout:PT2M}") Duration startupTimeout,
+                             @Value("${conversion.isolation.timeout:PT5M}") Duration timeout) throws IOException {
+        this(enabled, workers, workerCommand(heap, jvmArgs), jobsPerWorker, startupTimeout, timeout);
+    }
+
+    /**
+     * @param command command line that starts one worker speaking {@link WorkerProtocol}
+     */
+    WorkerProcessPool(boolean enabled, int workers, List<String> command, int jobsPerWorker,
+                      Duration startupTimeout, Duration timeout) throws IOException {
+        this.enabled = enabled;
+        this.jobsPerWorker = Math.max(1, jobsPerWorker);
+        this.startupTimeout = startupTimeout;
+        this.timeout = timeout;
+        this.command = command;
+        if (!enabled) return;
+
+        int size = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < size; i++) {
+            idle.add(spawn());
+        }
+        log.info("Converter isolation enabled: {} worker processes, {} jobs each, timeout {}",
+                size, this.jobsPerWorker, timeout);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Run {@code converter} in a worker process. Blocks until a worker is free.
+     * @param deadline when to give up waiting for a worker and kill the conversion; null
+     *                 allows conversion.isolation.timeout once the conversion starts
+     * @throws IOException if the conversion fails, passes its deadline or kills the worker
+     */
+    public void convert(PdfConverter converter, File source, File dest, ConversionOptions options, Instant deadline)
+            throws IOException {
+        WorkerProcess worker;
+        try {
+            if (deadline == null) {
+                worker = idle.take();
+            } else {
+                worker = idle.poll(remaining(deadline).toMillis(), TimeUnit.MILLISECONDS);
+                if (worker == null) throw new IOException("No converter worker became free before the deadline");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a converter worker");
+        }
+        try {
+            Duration limit = deadline != null ? remaining(deadline) : timeout;
+            worker.convert(ConverterRegistry.nameOf(converter), source, dest, options, startupTimeout, limit);
+        } finally {
+            release(worker);
+        }
+    }
+
+    private static Duration remaining(Instant deadline) {
+        Duration left = Duration.between(Instant.now(), deadline);
+        return left.isNegative() ? Duration.ZERO : left;
+    }
+
+    /**
+     * Return a worker to the pool, or replace it if it died or has served its quota.
+     */
+    private void release(WorkerProcess worker) {
+        if (closed) {
+            worker.kill();
+            return;
+        }
+        if (worker.isAlive() && worker.getJobs() < jobsPerWorker) {
+            idle.add(worker);
+            return;
+        }
+        if (worker.isAlive()) {
+            Thread retire = new Thread(worker::retire, "conversion-worker-retire");
+            retire.setDaemon(true);
+            retire.start();
+        }
+        try {
+            idle.add(spawn());
+        } catch (IOException e) {
+            log.error("Failed to start a replacement converter worker; pool shrinks by one", e);
+        }
+    }
+
+    private WorkerProcess spawn() throws IOException {
+        return new WorkerProcess(counter.incrementAndGet(), command);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        WorkerProcess worker;
+        while ((worker = idle.poll()) != null) {
+            worker.kill();
+        }
+    }
+
+    /**
+     * Command line for a worker: the same JVM and class path as this application. When
+     * running from the executable jar, the Boot launcher is needed to reach the nested jars.
+     */
+    private static List<String> workerCommand(String heap, List<String> jvmArgs) {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        cmd.add("-Xmx" + heap);
+        cmd.add("-XX:+ExitOnOutOfMemoryError");
+        cmd.add("-Dfile.encoding=UTF-8");
+        jvmArgs.stream().filter(a -> !a.isBlank()).forEach(cmd::add);
+        String classPath = System.getProperty("java.class.path");
+        cmd.add("-cp");
+        cmd.add(classPath);
+        if (!classPath.contains(File.pathSeparator) && classPath.endsWith(".jar")) {
+            cmd.add("-Dloader.main=" + WorkerMain.class.getName());
+            cmd.add(LAUNCHER);
+        } else {
+            cmd.add(WorkerMain.class.getName());
+        }
+        return cmd;
+    }
+}
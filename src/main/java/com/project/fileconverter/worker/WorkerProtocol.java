@@ -0,0 +1,67 @@
+package com.project.fileconverter.worker;
+
+import java.io.File;
+import java.util.StringJoiner;
+
+import com.project.fileconverter.model.ConversionOptions;
+import com.project.fileconverter.model.SlideRenderMode;
+
+/**
+ * Line protocol between the application and its converter worker processes.
+ * <p>
+ * The worker writes {@code ready} once its converters are loaded. Each request is one
+ * tab-separated line, {@code convert <converter> <source> <dest> <options>}, answered
+ * by {@code ok} or {@code error <message>}. Paths are generated by the storage layer and
+ * never contain tabs or line breaks.
+ * <p>
+ * Options are the {@link ConversionOptions} fields that are set, as {@code name=value}
+ * pairs joined by {@code &}, or {@code -} if none is. Each field is written and read
+ * explicitly below, so a new option has to be added here to reach the workers.
+ */
+final class WorkerProtocol {
+
+    static final String READY = "ready";
+    static final String OK = "ok";
+    static final String ERROR = "error";
+    static final String CONVERT = "convert";
+
+    private static final String UNSET = "-";
+    private static final String SLIDE_RENDER_MODE = "slideRenderMode";
+
+    private WorkerProtocol() {
+    }
+
+    static String request(String converter, File source, File dest, ConversionOptions options) {
+        return String.join("\t", CONVERT, converter, source.getAbsolutePath(), dest.getAbsolutePath(), encode(options));
+    }
+
+    static ConversionOptions options(String[] request) {
+        ConversionOptions.ConversionOptionsBuilder builder = ConversionOptions.builder();
+        if (UNSET.equals(request[4])) return builder.build();
+        for (String pair : request[4].split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Malformed option " + pair);
+            String name = pair.substring(0, eq);
+            String value = pair.substring(eq + 1);
+            if (SLIDE_RENDER_MODE.equals(name)) {
+                builder.slideRenderMode(SlideRenderMode.valueOf(value));
+            } else {
+                throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        return builder.build();
+    }
+
+    static String error(Throwable e) {
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+        return ERROR + "\t" + message.replaceAll("[\\t\\r\\n]+", " ");
+    }
+
+    private static String encode(ConversionOptions options) {
+        StringJoiner pairs = new StringJoiner("&");
+        if (options.getSlideRenderMode() != null) {
+            pairs.add(SLIDE_RENDER_MODE + "=" + options.getSlideRenderMode().name());
+        }
+        return pairs.length() == 0 ? UNSET : pairs.toString();
+    }
+}
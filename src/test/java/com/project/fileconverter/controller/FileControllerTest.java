@@ -0,0 +1,97 @@
+package com.project.fileconverter.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.project.fileconverter.model.StoredFile;
+import com.project.fileconverter.service.ConverterService;
+
+@SpringBootTest
+public class FileControllerTest {
+
+    private static final String TEXT = "0123456789abcdef\n";
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ConverterService converterService;
+
+    private MockMvc mvc;
+    private StoredFile stored;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        mvc = MockMvcBuilders.webAppContextSetup(context).build();
+        stored = converterService.storeAndConvert(
+                new MockMultipartFile("file", "notes.txt", "text/plain", TEXT.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testDownloadServesFileWithValidators() throws Exception {
+        mvc.perform(get("/api/download/" + stored.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(content().string(TEXT));
+    }
+
+    @Test
+    public void testDownloadAnswersRangeRequests() throws Exception {
+        mvc.perform(get("/api/download/" + stored.getId()).header(HttpHeaders.RANGE, "bytes=4-7"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 4-7/" + TEXT.length()))
+                .andExpect(content().string("4567"));
+    }
+
+    @Test
+    public void testMatchingETagIsNotModified() throws Exception {
+        String etag = mvc.perform(get("/api/view/" + stored.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/pdf"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/view/" + stored.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testUnknownIdIsNotFound() throws Exception {
+        mvc.perform(get("/api/download/no-such-file")).andExpect(status().isNotFound());
+        mvc.perform(get("/api/view/no-such-file")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testPageImageAcceptsJpgAlias() throws Exception {
+        mvc.perform(get("/api/view/" + stored.getId() + "/pages/1").param("format", "jpg").param("dpi", "36"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"));
+    }
+
+    @Test
+    public void testUnsupportedPageFormatListsSupportedOnes() throws Exception {
+        mvc.perform(get("/api/view/" + stored.getId() + "/pages/1").param("format", "gif"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("png, jpeg")));
+    }
+
+    @Test
+    public void testMissingPageIsNotFound() throws Exception {
+        mvc.perform(get("/api/view/" + stored.getId() + "/pages/99"))
+                .andExpect(status().isNotFound());
+    }
+}
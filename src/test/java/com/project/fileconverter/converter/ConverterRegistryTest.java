@@ -0,0 +1,46 @@
+package com.project.fileconverter.converter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+public class ConverterRegistryTest {
+
+    @Autowired
+    private ConverterRegistry registry;
+
+    @Test
+    public void testExactTypeWinsOverWildcard() {
+        assertInstanceOf(HtmlPdfConverter.class, registry.find("text/html; charset=UTF-8", "page.html"));
+        assertInstanceOf(TextPdfConverter.class, registry.find("text/csv", "data.csv"));
+    }
+
+    @Test
+    public void testFallsBackToExtension() {
+        assertInstanceOf(DocxPdfConverter.class, registry.find("application/x-tika-ooxml", "Report.DOCX"));
+        assertInstanceOf(TextPdfConverter.class, registry.find(null, "server.log"));
+    }
+
+    @Test
+    public void testUnsupportedTypeHasNoConverter() {
+        assertNull(registry.find("application/pdf", "document.pdf"));
+        assertNull(registry.find(null, "archive"));
+    }
+
+    @Test
+    public void testCapabilitiesListEveryConverter() {
+        assertTrue(registry.capabilities().containsKey("ImagePdfConverter"));
+        assertTrue(registry.capabilities().get("XlsxPdfConverter").extensions().contains("xls"));
+    }
+
+    @Test
+    public void testConvertersDeclareTheirCostUnit() {
+        assertEquals(CostUnit.PAGES, registry.capabilities().get("DocxPdfConverter").costUnit());
+        assertEquals(CostUnit.SLIDES, registry.capabilities().get("PptxPdfConverter").costUnit());
+        assertEquals(CostUnit.ROWS, registry.capabilities().get("XlsxPdfConverter").costUnit());
+        assertEquals(CostUnit.KIB, registry.capabilities().get("TextPdfConverter").costUnit());
+    }
+}
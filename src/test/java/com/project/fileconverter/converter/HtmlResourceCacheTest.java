@@ -0,0 +1,94 @@
+package com.project.fileconverter.converter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class HtmlResourceCacheTest {
+
+    private static final String CSS = "p::before { content: \"café\"; }";
+    private static final String LARGE_CSS = "body { margin: 0; } ".repeat(20);
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger largeRequests = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/latin1.css", exchange -> {
+            byte[] body = CSS.getBytes(StandardCharsets.ISO_8859_1);
+            exchange.getResponseHeaders().set("Content-Type", "text/css; charset=\"ISO-8859-1\"");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        for (String path : new String[]{"/large.css", "/chunked.css"}) {
+            server.createContext(path, exchange -> {
+                largeRequests.incrementAndGet();
+                byte[] body = LARGE_CSS.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/css");
+                // a length of 0 sends the body chunked, without Content-Length
+                exchange.sendResponseHeaders(200, path.equals("/large.css") ? body.length : 0);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+        }
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testStylesheetIsDecodedWithServedCharset() throws Exception {
+        HtmlResourceCache cache = new HtmlResourceCache(1 << 20, 1 << 20, Duration.ofMinutes(1));
+
+        // the second read comes from the cache and must keep the charset
+        for (int i = 0; i < 2; i++) {
+            try (BufferedReader reader = new BufferedReader(cache.getUrl(baseUrl + "/latin1.css").getReader())) {
+                assertEquals(CSS, reader.readLine());
+            }
+        }
+    }
+
+    @Test
+    public void testCharsetFallsBackToUtf8() {
+        assertEquals(StandardCharsets.UTF_8, HtmlResourceCache.charsetOf(null));
+        assertEquals(StandardCharsets.UTF_8, HtmlResourceCache.charsetOf("text/css"));
+        assertEquals(StandardCharsets.UTF_8, HtmlResourceCache.charsetOf("text/css; charset=no-such-charset"));
+        assertEquals(StandardCharsets.UTF_16LE, HtmlResourceCache.charsetOf("text/css;Charset=utf-16le"));
+    }
+
+    @Test
+    public void testResourcesAboveEntryLimitAreStreamedUncached() throws Exception {
+        HtmlResourceCache cache = new HtmlResourceCache(1 << 20, 64, Duration.ofMinutes(1));
+
+        for (String path : new String[]{"/large.css", "/chunked.css"}) {
+            largeRequests.set(0);
+            for (int i = 0; i < 2; i++) {
+                try (BufferedReader reader = new BufferedReader(cache.getUrl(baseUrl + path).getReader())) {
+                    assertEquals(LARGE_CSS, reader.readLine());
+                }
+            }
+            // each use checks the size once and streams once; nothing is served from the cache
+            assertEquals(4, largeRequests.get(), path);
+        }
+    }
+}
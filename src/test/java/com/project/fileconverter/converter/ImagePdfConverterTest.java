@@ -0,0 +1,139 @@
+package com.project.fileconverter.converter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+public class ImagePdfConverterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ImagePdfConverter converter;
+    private File outputPdfFile;
+
+    @BeforeEach
+    public void setUp() {
+        PdfOutputFactory outputs = new PdfOutputFactory(DataSize.ofMegabytes(4), DataSize.ofMegabytes(16), Duration.ofSeconds(1));
+        converter = new ImagePdfConverter(outputs, 150, "LETTER", 0.85f, DataSize.ofMegabytes(4));
+        outputPdfFile = tempDir.resolve("output.pdf").toFile();
+    }
+
+    private static BufferedImage image(int width, int height, Color color) {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setColor(color);
+            g.fillRect(0, 0, width, height);
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+
+    private static PDImageXObject onlyImage(PDPage page) throws Exception {
+        PDResources resources = page.getResources();
+        COSName name = resources.getXObjectNames().iterator().next();
+        return (PDImageXObject) resources.getXObject(name);
+    }
+
+    @Test
+    public void testEveryTiffFrameBecomesAPage() throws Exception {
+        File tiff = tempDir.resolve("scan.tiff").toFile();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(tiff)) {
+            writer.setOutput(out);
+            writer.prepareWriteSequence(null);
+            for (Color color : new Color[]{Color.RED, Color.GREEN, Color.BLUE}) {
+                writer.writeToSequence(new IIOImage(image(200, 300, color), null, null), null);
+            }
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+
+        converter.convert(tiff, outputPdfFile);
+
+        try (PDDocument pdf = PDDocument.load(outputPdfFile)) {
+            assertEquals(3, pdf.getNumberOfPages());
+            assertEquals(200, pdf.getPage(2).getMediaBox().getWidth(), 0.01);
+        }
+    }
+
+    @Test
+    public void testAnimatedGifBecomesOnePage() throws Exception {
+        File gif = tempDir.resolve("spinner.gif").toFile();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(gif)) {
+            writer.setOutput(out);
+            writer.prepareWriteSequence(null);
+            for (Color color : new Color[]{Color.RED, Color.GREEN, Color.BLUE}) {
+                writer.writeToSequence(new IIOImage(image(64, 48, color), null, null), null);
+            }
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+
+        converter.convert(gif, outputPdfFile);
+
+        try (PDDocument pdf = PDDocument.load(outputPdfFile)) {
+            assertEquals(1, pdf.getNumberOfPages());
+            assertEquals(64, pdf.getPage(0).getMediaBox().getWidth(), 0.01);
+        }
+    }
+
+    @Test
+    public void testLargeImageIsDownsampledToTargetDpi() throws Exception {
+        File png = tempDir.resolve("poster.png").toFile();
+        ImageIO.write(image(4000, 2000, Color.ORANGE), "png", png);
+
+        converter.convert(png, outputPdfFile);
+
+        try (PDDocument pdf = PDDocument.load(outputPdfFile)) {
+            PDPage page = pdf.getPage(0);
+            // landscape, shrunk to fit Letter
+            assertEquals(792, page.getMediaBox().getWidth(), 0.01);
+            assertEquals(396, page.getMediaBox().getHeight(), 0.01);
+            // 11 inches at 150 dpi
+            PDImageXObject image = onlyImage(page);
+            assertEquals(1650, image.getWidth());
+            assertEquals(825, image.getHeight());
+        }
+    }
+
+    @Test
+    public void testSmallJpegIsEmbeddedAsIs() throws Exception {
+        File jpeg = tempDir.resolve("photo.jpg").toFile();
+        ImageIO.write(image(120, 80, Color.CYAN), "jpeg", jpeg);
+
+        converter.convert(jpeg, outputPdfFile);
+
+        try (PDDocument pdf = PDDocument.load(outputPdfFile)) {
+            PDImageXObject image = onlyImage(pdf.getPage(0));
+            assertEquals(120, image.getWidth());
+            assertEquals("jpg", image.getSuffix());
+            assertEquals(jpeg.length(), image.getCOSObject().getLength());
+        }
+    }
+}
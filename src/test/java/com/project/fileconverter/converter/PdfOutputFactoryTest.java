@@ -0,0 +1,55 @@
+package com.project.fileconverter.converter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+public class PdfOutputFactoryTest {
+
+    private final PdfOutputFactory factory = new PdfOutputFactory(
+            DataSize.ofKilobytes(4), DataSize.ofKilobytes(6), Duration.ofMillis(10));
+
+    @Test
+    public void testOutputReservesItsCapUntilClosed() throws Exception {
+        try (PdfOutputFactory.PdfOutput output = factory.open()) {
+            assertTrue(output.getMemoryUsageSetting().useMainMemory());
+            assertEquals(4096, output.getMemoryUsageSetting().getMaxMainMemoryBytes());
+            assertEquals(2048, factory.getAvailableBytes());
+        }
+        assertEquals(6144, factory.getAvailableBytes());
+    }
+
+    @Test
+    public void testOutputSpillsOnceTheBudgetIsTaken() throws Exception {
+        try (PdfOutputFactory.PdfOutput first = factory.open();
+             PdfOutputFactory.PdfOutput second = factory.open()) {
+            assertFalse(second.getMemoryUsageSetting().useMainMemory());
+            assertTrue(second.getMemoryUsageSetting().useTempFile());
+            assertEquals(1, factory.getSpilledCount());
+
+            second.close();
+            assertEquals(2048, factory.getAvailableBytes(), "A spilled output holds no budget");
+        }
+        assertEquals(6144, factory.getAvailableBytes());
+    }
+
+    @Test
+    public void testCloseReleasesTheBudgetOnce() throws Exception {
+        PdfOutputFactory.PdfOutput output = factory.open(1);
+        assertEquals(5120, factory.getAvailableBytes());
+        output.close();
+        output.close();
+        assertEquals(6144, factory.getAvailableBytes());
+    }
+
+    @Test
+    public void testOversizedCapIsLimitedToTheBudget() throws Exception {
+        try (PdfOutputFactory.PdfOutput output = factory.open(DataSize.ofMegabytes(1).toBytes())) {
+            assertTrue(output.getMemoryUsageSetting().useMainMemory());
+            assertEquals(0, factory.getAvailableBytes());
+        }
+    }
+}
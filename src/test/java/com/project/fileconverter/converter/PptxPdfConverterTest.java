@@ -0,0 +1,92 @@
+package com.project.fileconverter.converter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.poi.sl.usermodel.ShapeType;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFAutoShape;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.project.fileconverter.model.SlideRenderMode;
+
+public class PptxPdfConverterTest {
+
+    private static final int SLIDES = 12;
+
+    @TempDir
+    Path tempDir;
+
+    private RenderPool serialPool;
+    private RenderPool parallelPool;
+
+    @AfterEach
+    public void tearDown() {
+        if (serialPool != null) serialPool.shutdown();
+        if (parallelPool != null) parallelPool.shutdown();
+    }
+
+    @Test
+    public void testParallelRasterMatchesSerial() throws Exception {
+        File deck = createDeck(tempDir.resolve("deck.pptx"));
+        serialPool = new RenderPool(1);
+        parallelPool = new RenderPool(4);
+        PptxPdfConverter serial = new PptxPdfConverter(serialPool, 1, 1, SlideRenderMode.RASTER, List.of());
+        PptxPdfConverter parallel = new PptxPdfConverter(parallelPool, 8, 2, SlideRenderMode.RASTER, List.of());
+
+        File serialPdf = tempDir.resolve("serial.pdf").toFile();
+        File parallelPdf = tempDir.resolve("parallel.pdf").toFile();
+        serial.convert(deck, serialPdf);
+        parallel.convert(deck, parallelPdf);
+
+        try (PDDocument expected = PDDocument.load(serialPdf); PDDocument actual = PDDocument.load(parallelPdf)) {
+            assertEquals(SLIDES, expected.getNumberOfPages());
+            assertEquals(SLIDES, actual.getNumberOfPages());
+            PDFRenderer expectedPages = new PDFRenderer(expected);
+            PDFRenderer actualPages = new PDFRenderer(actual);
+            for (int page = 0; page < SLIDES; page++) {
+                BufferedImage e = expectedPages.renderImageWithDPI(page, 36);
+                BufferedImage a = actualPages.renderImageWithDPI(page, 36);
+                assertArrayEquals(pixels(e), pixels(a), "Slide " + (page + 1) + " differs from the serial render");
+            }
+        }
+    }
+
+    /**
+     * Slides sharing one master and layout, each with its own text and fill colour.
+     */
+    private static File createDeck(Path path) throws Exception {
+        try (XMLSlideShow ppt = new XMLSlideShow(); OutputStream out = Files.newOutputStream(path)) {
+            for (int i = 1; i <= SLIDES; i++) {
+                XSLFSlide slide = ppt.createSlide();
+                XSLFTextBox title = slide.createTextBox();
+                title.setAnchor(new Rectangle(40, 40, 600, 60));
+                title.setText("Slide " + i);
+                XSLFAutoShape box = slide.createAutoShape();
+                box.setShapeType(ShapeType.RECT);
+                box.setAnchor(new Rectangle(40, 140, 80 + i * 30, 120));
+                box.setFillColor(new Color(i * 20, 255 - i * 20, 128));
+            }
+            ppt.write(out);
+        }
+        return path.toFile();
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}
@@ -0,0 +1,147 @@
+package com.project.fileconverter.converter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.util.unit.DataSize;
+
+@SpringBootTest
+public class TextPdfConverterTest {
+
+    @Autowired
+    private TextPdfConverter textPdfConverter;
+
+    @TempDir
+    Path tempDir;
+
+    private File testTextFile;
+    private File outputPdfFile;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        testTextFile = tempDir.resolve("test.log").toFile();
+        outputPdfFile = tempDir.resolve("output.pdf").toFile();
+
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= 200; i++) {
+            text.append("Line ").append(i).append('\n');
+        }
+        // One long line that must wrap, plus characters Helvetica cannot encode
+        text.append("word ".repeat(100)).append('\n');
+        text.append("tab\there ✓ 中文\n");
+        Files.writeString(testTextFile.toPath(), text, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testLongTextIsPaginated() throws Exception {
+        textPdfConverter.convert(testTextFile, outputPdfFile);
+
+        try (PDDocument pdf = PDDocument.load(outputPdfFile)) {
+            assertTrue(pdf.getNumberOfPages() > 1, "Text should span several pages");
+            String extracted = new PDFTextStripper().getText(pdf);
+            assertTrue(extracted.contains("Line 1"));
+            assertTrue(extracted.contains("Line 200"));
+        }
+    }
+
+    @Test
+    public void testEmptyFileProducesOnePage() throws Exception {
+        Files.writeString(testTextFile.toPath(), "");
+
+        textPdfConverter.convert(testTextFile, outputPdfFile);
+
+        try (PDDocument pdf = PDDocument.load(outputPdfFile)) {
+            assertEquals(1, pdf.getNumberOfPages());
+        }
+    }
+
+    @Test
+    public void testLineWithoutBreaksIsWrappedAsItStreams() throws Exception {
+        // far longer than the writer buffers, with no line break anywhere
+        String line = "0123456789 ".repeat(TextPageWriter.MAX_PENDING);
+        Files.writeString(testTextFile.toPath(), line + "END", StandardCharsets.UTF_8);
+
+        textPdfConverter.convert(testTextFile, outputPdfFile);
+
+        try (PDDocument pdf = PDDocument.load(outputPdfFile)) {
+            assertTrue(pdf.getNumberOfPages() > 10, "A long line should wrap over many pages");
+            String extracted = new PDFTextStripper().getText(pdf);
+            assertEquals(TextPageWriter.MAX_PENDING, extracted.split("0123456789", -1).length - 1,
+                    "Every word should be laid out exactly once");
+            assertTrue(extracted.trim().endsWith("END"));
+        }
+    }
+
+    @Test
+    public void testCarriageReturnsEndLines() throws Exception {
+        Files.writeString(testTextFile.toPath(), "first\r\nsecond\rthird", StandardCharsets.UTF_8);
+
+        textPdfConverter.convert(testTextFile, outputPdfFile);
+
+        try (PDDocument pdf = PDDocument.load(outputPdfFile)) {
+            List<String> lines = new PDFTextStripper().getText(pdf).lines().filter(l -> !l.isBlank()).toList();
+            assertEquals(List.of("first", "second", "third"), lines);
+        }
+    }
+
+    @Test
+    public void testSplitAtLinesEndsChunksOnLineBreaks() throws Exception {
+        byte[] content = Files.readAllBytes(testTextFile.toPath());
+
+        List<Long> bounds = TextPdfConverter.splitAtLines(testTextFile.toPath(), 4);
+
+        assertEquals(0L, bounds.get(0));
+        assertEquals(content.length, bounds.get(bounds.size() - 1));
+        for (int i = 1; i + 1 < bounds.size(); i++) {
+            assertTrue(bounds.get(i) > bounds.get(i - 1));
+            assertEquals('\n', content[(int) (bounds.get(i) - 1)], "Chunk " + i + " should start after a line break");
+        }
+    }
+
+    @Test
+    public void testSupportsLogByFilename() {
+        assertTrue(textPdfConverter.supports(null, "server.log"));
+    }
+
+    @Test
+    public void testChunkedConversionKeepsEveryLineInOrder() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= 2000; i++) {
+            text.append("Row ").append(i).append(" of the chunked input\n");
+        }
+        Files.writeString(testTextFile.toPath(), text, StandardCharsets.UTF_8);
+        RenderPool pool = new RenderPool(4);
+        PdfOutputFactory outputs = new PdfOutputFactory(DataSize.ofMegabytes(1), DataSize.ofMegabytes(8), Duration.ofSeconds(1));
+        TextPdfConverter chunked = new TextPdfConverter(pool, outputs, DataSize.ofMegabytes(1), DataSize.ofKilobytes(1), 4);
+        try {
+            chunked.convert(testTextFile, outputPdfFile);
+        } finally {
+            pool.shutdown();
+        }
+
+        try (PDDocument pdf = PDDocument.load(outputPdfFile)) {
+            List<String> rows = new PDFTextStripper().getText(pdf).lines().filter(l -> l.startsWith("Row ")).toList();
+            assertEquals(2000, rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals("Row " + (i + 1) + " of the chunked input", rows.get(i));
+            }
+        }
+        try (var files = Files.list(tempDir)) {
+            assertTrue(files.noneMatch(f -> f.getFileName().toString().contains(".chunk")), "Chunk files should be removed");
+        }
+        assertEquals(DataSize.ofMegabytes(8).toBytes(), outputs.getAvailableBytes(), "Chunks should return their memory");
+    }
+}
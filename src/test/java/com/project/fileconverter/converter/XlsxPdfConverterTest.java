@@ -0,0 +1,149 @@
+package com.project.fileconverter.converter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class XlsxPdfConverterTest {
+
+    private static final int ROWS_PER_FLUSH = 5;
+
+    @TempDir
+    Path tempDir;
+
+    private XlsxPdfConverter converter;
+    private File outputPdfFile;
+
+    @BeforeEach
+    public void setUp() {
+        converter = new XlsxPdfConverter(ROWS_PER_FLUSH);
+        outputPdfFile = tempDir.resolve("output.pdf").toFile();
+    }
+
+    /**
+     * Two sheets; the product names repeat, so .xlsx stores them once in the shared
+     * strings table and .xls in its SST record.
+     */
+    private static File createWorkbook(Workbook workbook, Path path) throws Exception {
+        try (workbook; OutputStream out = Files.newOutputStream(path)) {
+            Sheet sales = workbook.createSheet("Sales");
+            addRow(sales, 0, "Product", "Region", "Units");
+            for (int i = 1; i <= 4; i++) {
+                Row row = sales.createRow(i);
+                row.createCell(0).setCellValue(i % 2 == 0 ? "Widget" : "Gadget");
+                // column 1 left blank
+                row.createCell(2).setCellValue(i * 10);
+            }
+            Sheet costs = workbook.createSheet("Costs");
+            addRow(costs, 0, "Item", "Amount");
+            addRow(costs, 1, "Widget", "Shipping");
+            workbook.write(out);
+        }
+        return path.toFile();
+    }
+
+    private static void addRow(Sheet sheet, int index, String... values) {
+        Row row = sheet.createRow(index);
+        for (int i = 0; i < values.length; i++) {
+            row.createCell(i).setCellValue(values[i]);
+        }
+    }
+
+    private void assertEverySheetWritten() throws Exception {
+        try (PDDocument pdf = PDDocument.load(outputPdfFile)) {
+            assertEquals(2, pdf.getNumberOfPages(), "Each sheet should start on its own page");
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setStartPage(1);
+            stripper.setEndPage(1);
+            String sales = stripper.getText(pdf);
+            assertTrue(sales.contains("Sales"));
+            assertTrue(sales.contains("Gadget") && sales.contains("Widget"), "Shared strings should be resolved");
+            assertTrue(sales.contains("40"));
+            stripper.setStartPage(2);
+            stripper.setEndPage(2);
+            String costs = stripper.getText(pdf);
+            assertTrue(costs.contains("Costs"));
+            assertTrue(costs.contains("Shipping"));
+        }
+    }
+
+    @Test
+    public void testEveryXlsxSheetIsWritten() throws Exception {
+        File xlsx = createWorkbook(new XSSFWorkbook(), tempDir.resolve("report.xlsx"));
+
+        converter.convert(xlsx, outputPdfFile);
+
+        assertEverySheetWritten();
+    }
+
+    @Test
+    public void testEveryXlsSheetIsWritten() throws Exception {
+        File xls = createWorkbook(new HSSFWorkbook(), tempDir.resolve("report.xls"));
+
+        converter.convert(xls, outputPdfFile);
+
+        assertEverySheetWritten();
+    }
+
+    @Test
+    public void testRowsBeyondFlushSizeAreKeptAndHeaderRepeats() throws Exception {
+        Path path = tempDir.resolve("long.xlsx");
+        int rows = 40 * ROWS_PER_FLUSH;
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(path)) {
+            Sheet sheet = workbook.createSheet("Long");
+            addRow(sheet, 0, "ColumnName", "ColumnValue");
+            for (int i = 1; i <= rows; i++) {
+                addRow(sheet, i, "Item " + i, "Value " + i);
+            }
+            workbook.write(out);
+        }
+
+        converter.convert(path.toFile(), outputPdfFile);
+
+        try (PDDocument pdf = PDDocument.load(outputPdfFile)) {
+            assertTrue(pdf.getNumberOfPages() > 1, "The sheet should span several pages");
+            PDFTextStripper stripper = new PDFTextStripper();
+            Set<String> items = new HashSet<>();
+            Matcher matcher = Pattern.compile("Item (\\d+)").matcher(stripper.getText(pdf));
+            while (matcher.find()) items.add(matcher.group(1));
+            assertEquals(rows, items.size(), "Every row should be written");
+            for (int page = 1; page <= pdf.getNumberOfPages(); page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                assertTrue(stripper.getText(pdf).contains("ColumnName"), "Page " + page + " should repeat the header");
+            }
+        }
+    }
+
+    @Test
+    public void testWriterFailureLeavesRowCallback() throws Exception {
+        File xlsx = createWorkbook(new XSSFWorkbook(), tempDir.resolve("report.xlsx"));
+
+        // the first row written checks for cancellation and fails inside the SAX callback
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(InterruptedIOException.class, () -> converter.convert(xlsx, outputPdfFile));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
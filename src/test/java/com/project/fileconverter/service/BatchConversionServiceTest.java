@@ -0,0 +1,106 @@
+package com.project.fileconverter.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.project.fileconverter.model.ConversionOptions;
+
+@SpringBootTest
+public class BatchConversionServiceTest {
+
+    @Autowired
+    private BatchConversionService batchService;
+
+    @Autowired
+    private ConverterService converterService;
+
+    @Autowired
+    private ConversionJobService jobService;
+
+    private static MockMultipartFile text(String name, String content) {
+        return new MockMultipartFile("files", name, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MockMultipartFile archive(String name, String... entries) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (String entry : entries) {
+                zip.putNextEntry(new ZipEntry(entry));
+                zip.write(("content of " + entry + "\n").getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return new MockMultipartFile("files", name, "application/zip", bytes.toByteArray());
+    }
+
+    @Test
+    public void testArchivesAreExpandedAndResultsStreamed() throws Exception {
+        List<MultipartFile> files = List.of(
+                text("notes.txt", "first\n"),
+                archive("more.zip", "docs/notes.txt", "b.txt", "__MACOSX/._b.txt", ".hidden"),
+                new MockMultipartFile("files", "blob.bin", "application/octet-stream", new byte[]{0, 1, 2, 3}));
+
+        List<BatchConversionService.Item> items = batchService.store(files);
+        assertEquals(List.of("notes.txt", "notes.txt", "b.txt", "blob.bin"),
+                items.stream().map(BatchConversionService.Item::getName).toList());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batchService.convert(items, ConversionOptions.defaults(), out);
+
+        List<String> entries = new ArrayList<>();
+        String manifest = null;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.add(entry.getName());
+                byte[] data = zip.readAllBytes();
+                if (entry.getName().equals(BatchConversionService.MANIFEST)) {
+                    manifest = new String(data, StandardCharsets.UTF_8);
+                } else {
+                    assertEquals("%PDF", new String(data, 0, 4, StandardCharsets.US_ASCII));
+                }
+            }
+        }
+        assertEquals(BatchConversionService.MANIFEST, entries.get(entries.size() - 1), "The manifest should come last");
+        assertTrue(entries.containsAll(List.of("notes.pdf", "notes (2).pdf", "b.pdf")), entries.toString());
+        assertEquals(4, entries.size());
+
+        List<String> lines = manifest.lines().toList();
+        assertEquals("file,status,entry,id,error", lines.get(0));
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(4).startsWith("blob.bin,FAILED,,"), lines.get(4));
+    }
+
+    @Test
+    public void testTooManyFilesKeepNothing() {
+        BatchConversionService limited = new BatchConversionService(converterService, jobService, 2,
+                DataSize.ofMegabytes(1), 1);
+
+        assertThrows(BatchLimitExceededException.class, () -> limited.store(List.of(
+                text("a.txt", "a"), archive("more.zip", "b.txt", "c.txt"))));
+    }
+
+    @Test
+    public void testArchiveExpandingBeyondLimitIsRejected() {
+        BatchConversionService limited = new BatchConversionService(converterService, jobService, 100,
+                DataSize.ofBytes(30), 1);
+
+        assertThrows(BatchLimitExceededException.class, () -> limited.store(List.of(
+                archive("more.zip", "a.txt", "b.txt", "c.txt"))));
+    }
+}
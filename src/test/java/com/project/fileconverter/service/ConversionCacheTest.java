@@ -0,0 +1,89 @@
+package com.project.fileconverter.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ConversionCacheTest {
+
+    private static final String HASH = "ab12cd34";
+
+    @TempDir
+    Path storageDir;
+
+    private ConversionCache cache;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        cache = new ConversionCache(storageDir.toString());
+    }
+
+    private Path upload(String name, String content) throws Exception {
+        return Files.writeString(storageDir.resolve(name), content);
+    }
+
+    @Test
+    public void testSameContentSharesOneBlob() throws Exception {
+        Path first = storageDir.resolve("first.txt");
+        Path second = storageDir.resolve("second.txt");
+        Path upload = upload("upload-1", "hello");
+
+        Path blob = cache.internSource(HASH, upload, first);
+        assertEquals(cache.getCacheDir().resolve("ab").resolve(HASH + ".src"), blob);
+        assertTrue(Files.isSameFile(blob, first));
+
+        Path again = upload("upload-2", "hello");
+        assertEquals(blob, cache.internSource(HASH, again, second));
+        assertFalse(Files.exists(again), "The duplicate upload should be dropped");
+        assertTrue(Files.isSameFile(blob, second));
+    }
+
+    @Test
+    public void testPublishedPdfIsReused() throws Exception {
+        Path pdf = upload("first.pdf", "%PDF");
+        assertNull(cache.linkCachedPdf(HASH, "TextPdfConverter-2", storageDir.resolve("none.pdf")));
+
+        Path blob = cache.publishPdf(HASH, "TextPdfConverter-2", pdf);
+        assertNotNull(blob);
+        assertNull(cache.publishPdf(HASH, "TextPdfConverter-2", pdf), "A second publish should keep the first blob");
+
+        Path reused = storageDir.resolve("second.pdf");
+        assertEquals(blob, cache.linkCachedPdf(HASH, "TextPdfConverter-2", reused));
+        assertEquals("%PDF", Files.readString(reused));
+        assertNull(cache.linkCachedPdf(HASH, "TextPdfConverter-3", storageDir.resolve("other.pdf")),
+                "Another converter version should not reuse the blob");
+    }
+
+    @Test
+    public void testPruneDeletesOnlyUnlinkedCandidates() throws Exception {
+        Path first = storageDir.resolve("first.txt");
+        Path second = storageDir.resolve("second.txt");
+        Path blob = cache.internSource(HASH, upload("upload-1", "hello"), first);
+        cache.internSource(HASH, upload("upload-2", "hello"), second);
+        Path unrelated = cache.internSource("ef56", upload("upload-3", "other"), storageDir.resolve("third.txt"));
+        Files.delete(storageDir.resolve("third.txt"));
+
+        Files.delete(first);
+        cache.prune(List.of(blob), Instant.now());
+        assertTrue(Files.exists(blob), "A blob still linked to an upload should be kept");
+
+        assertEquals(10, cache.getBlobBytes());
+
+        Files.delete(second);
+        cache.prune(List.of(blob), Instant.now());
+        assertFalse(Files.exists(blob));
+        assertEquals(5, cache.getBlobBytes());
+        assertTrue(Files.exists(unrelated), "Blobs that were not released should not be checked");
+
+        cache.pruneAll(Instant.now());
+        assertFalse(Files.exists(unrelated));
+        assertEquals(0, cache.getBlobBytes());
+    }
+}
@@ -0,0 +1,264 @@
+package com.project.fileconverter.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.project.fileconverter.converter.CostUnit;
+import com.project.fileconverter.model.ConversionOptions;
+import com.project.fileconverter.model.JobStatus;
+import com.project.fileconverter.model.StoredFile;
+
+public class ConversionJobServiceTest {
+
+    private final ConverterService converter = mock(ConverterService.class);
+    /** Conversions wait on their file's gate, if it has one, until it is opened. */
+    private final Map<String, CountDownLatch> gates = new ConcurrentHashMap<>();
+    private final Map<String, Double> costSeconds = new ConcurrentHashMap<>();
+    /** Ids of files in the order their conversions started. */
+    private final BlockingQueue<String> started = new LinkedBlockingQueue<>();
+    private ConversionJobService service;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        when(converter.formatKey(any())).thenAnswer(inv -> inv.<StoredFile>getArgument(0).getContentType());
+        when(converter.estimateCost(any())).thenAnswer(inv -> {
+            StoredFile stored = inv.getArgument(0);
+            return new ConversionCost(stored.getContentType(), CostUnit.KIB, 1, costSeconds.get(stored.getId()));
+        });
+        doAnswer(inv -> {
+            StoredFile stored = inv.getArgument(0);
+            started.add(stored.getId());
+            CountDownLatch gate = gates.get(stored.getId());
+            if (gate != null) gate.await();
+            return null;
+        }).when(converter).convert(any(), any(), any(), any());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        gates.values().forEach(CountDownLatch::countDown);
+        if (service != null) service.shutdown();
+    }
+
+    private ConversionJobService service(int workers, int queueCapacity, int perFormatLimit,
+                                         Duration maxQueuedCost, Duration timeout, double costWeight) {
+        service = new ConversionJobService(converter, mock(ConversionMetrics.class), workers, queueCapacity,
+                perFormatLimit, 10, Duration.ofHours(1), timeout, costWeight, maxQueuedCost, new MockEnvironment());
+        return service;
+    }
+
+    private ConversionJobService service(int workers, int queueCapacity, int perFormatLimit, Duration maxQueuedCost) {
+        return service(workers, queueCapacity, perFormatLimit, maxQueuedCost, Duration.ofMinutes(5), 1.0);
+    }
+
+    private StoredFile file(String id, String format, double seconds) {
+        costSeconds.put(id, seconds);
+        return new StoredFile(id, id + ".bin", format, null, null, id);
+    }
+
+    /** A file whose conversion blocks until its gate is opened. */
+    private StoredFile gated(String id, String format) {
+        gates.put(id, new CountDownLatch(1));
+        return file(id, format, 1);
+    }
+
+    private ConversionJob submit(StoredFile stored) throws Exception {
+        return service.submit(stored, ConversionOptions.defaults());
+    }
+
+    private void awaitStart(String id) throws InterruptedException {
+        assertEquals(id, started.poll(5, TimeUnit.SECONDS), "Expected " + id + " to start next");
+    }
+
+    private static ConversionJob awaitFinish(ConversionJob job) throws Exception {
+        return job.whenFinished().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testFullQueueRejectsSubmissions() throws Exception {
+        service(1, 1, 0, Duration.ofMinutes(30));
+        ConversionJob running = submit(gated("a", "txt"));
+        awaitStart("a");
+        ConversionJob queued = submit(file("b", "txt", 1));
+        assertEquals(1, service.getQueueDepth());
+        assertSame(queued, service.getJob("b"));
+
+        StoredFile rejected = file("c", "txt", 1);
+        ConversionQueueFullException e = assertThrows(ConversionQueueFullException.class, () -> submit(rejected));
+        assertEquals(10, e.getRetryAfterSeconds());
+        assertNull(service.getJob("c"));
+        verify(converter, never()).discard(rejected);
+
+        gates.get("a").countDown();
+        assertEquals(JobStatus.COMPLETED, awaitFinish(running).getStatus());
+        assertEquals(JobStatus.COMPLETED, awaitFinish(queued).getStatus());
+        assertEquals(0, service.getQueueDepth());
+    }
+
+    @Test
+    public void testQueuedCostLimitsAdmission() throws Exception {
+        service(1, 10, 0, Duration.ofSeconds(10));
+        submit(gated("a", "txt"));
+        awaitStart("a");
+
+        submit(file("b", "txt", 6));
+        assertThrows(ConversionQueueFullException.class, () -> submit(file("c", "txt", 6)));
+        submit(file("d", "txt", 3));
+
+        assertEquals(2, service.getQueueDepth());
+        assertEquals(Duration.ofSeconds(9), service.getQueuedCost());
+    }
+
+    @Test
+    public void testEmptyQueueAdmitsJobAboveCostLimit() throws Exception {
+        service(1, 10, 0, Duration.ofSeconds(10));
+        submit(gated("a", "txt"));
+        awaitStart("a");
+
+        submit(file("b", "txt", 60));
+        assertEquals(1, service.getQueueDepth());
+    }
+
+    @Test
+    public void testFormatAtLimitLeavesWorkersToOtherFormats() throws Exception {
+        service(2, 10, 1, Duration.ofMinutes(30));
+        ConversionJob first = submit(gated("a", "docx"));
+        awaitStart("a");
+        ConversionJob second = submit(file("b", "docx", 1));
+        ConversionJob other = submit(file("c", "txt", 1));
+
+        awaitStart("c");
+        assertEquals(JobStatus.COMPLETED, awaitFinish(other).getStatus());
+        assertEquals(JobStatus.QUEUED, second.getStatus());
+        assertEquals(1, service.getQueueDepth(), "A job set aside for its format still counts as queued");
+
+        gates.get("a").countDown();
+        awaitStart("b");
+        assertEquals(JobStatus.COMPLETED, awaitFinish(first).getStatus());
+        assertEquals(JobStatus.COMPLETED, awaitFinish(second).getStatus());
+    }
+
+    @Test
+    public void testCancelledQueuedJobNeverRuns() throws Exception {
+        service(1, 10, 0, Duration.ofMinutes(30));
+        submit(gated("a", "txt"));
+        awaitStart("a");
+        StoredFile stored = file("b", "txt", 1);
+        ConversionJob queued = submit(stored);
+
+        assertTrue(service.cancel(queued));
+        assertFalse(service.cancel(queued), "A finished job cannot be cancelled again");
+        assertEquals(JobStatus.CANCELLED, queued.getStatus());
+
+        gates.get("a").countDown();
+        verify(converter, timeout(5000)).discard(stored);
+        assertNull(started.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCancelledQueuedJobFreesItsSlotAtOnce() throws Exception {
+        service(1, 1, 0, Duration.ofMinutes(30));
+        submit(gated("a", "txt"));
+        awaitStart("a");
+        StoredFile stored = file("b", "txt", 60);
+        ConversionJob queued = submit(stored);
+        assertThrows(ConversionQueueFullException.class, () -> submit(file("c", "txt", 1)));
+
+        assertTrue(service.cancel(queued));
+
+        assertEquals(0, service.getQueueDepth());
+        assertEquals(Duration.ZERO, service.getQueuedCost());
+        verify(converter).discard(stored);
+        ConversionJob next = submit(file("d", "txt", 1));
+
+        gates.get("a").countDown();
+        awaitStart("d");
+        assertEquals(JobStatus.COMPLETED, awaitFinish(next).getStatus());
+        assertEquals(0, service.getQueueDepth());
+    }
+
+    @Test
+    public void testCancelledSetAsideJobFreesItsSlotAtOnce() throws Exception {
+        service(2, 10, 1, Duration.ofMinutes(30));
+        submit(gated("a", "docx"));
+        awaitStart("a");
+        StoredFile stored = file("b", "docx", 5);
+        ConversionJob setAside = submit(stored);
+        // the idle worker takes it off the queue and sets it aside behind "a"
+        Thread.sleep(200);
+
+        assertTrue(service.cancel(setAside));
+
+        assertEquals(0, service.getQueueDepth());
+        assertEquals(Duration.ZERO, service.getQueuedCost());
+        verify(converter).discard(stored);
+        gates.get("a").countDown();
+        assertNull(started.poll(200, TimeUnit.MILLISECONDS));
+        verify(converter, times(1)).discard(stored);
+    }
+
+    @Test
+    public void testCancelInterruptsRunningJob() throws Exception {
+        service(1, 10, 0, Duration.ofMinutes(30));
+        StoredFile stored = gated("a", "txt");
+        ConversionJob running = submit(stored);
+        awaitStart("a");
+
+        assertTrue(service.cancel(running));
+
+        assertEquals(JobStatus.CANCELLED, awaitFinish(running).getStatus());
+        verify(converter, timeout(5000)).discard(stored);
+    }
+
+    @Test
+    public void testJobPastDeadlineFails() throws Exception {
+        service(1, 10, 0, Duration.ofMinutes(30), Duration.ofMillis(200), 1.0);
+        StoredFile stored = gated("a", "txt");
+        ConversionJob running = submit(stored);
+
+        ConversionJob finished = awaitFinish(running);
+        assertEquals(JobStatus.FAILED, finished.getStatus());
+        assertTrue(finished.getError().startsWith("Timed out"), finished.getError());
+        verify(converter, timeout(5000)).discard(stored);
+    }
+
+    @Test
+    public void testShortJobsOvertakeLongOnes() throws Exception {
+        service(1, 10, 0, Duration.ofMinutes(30), Duration.ofMinutes(5), 1.0);
+        submit(gated("a", "txt"));
+        awaitStart("a");
+        submit(file("long", "txt", 60));
+        submit(file("short", "txt", 1));
+
+        gates.get("a").countDown();
+        awaitStart("short");
+        awaitStart("long");
+    }
+
+    @Test
+    public void testZeroCostWeightKeepsSubmissionOrder() throws Exception {
+        service(1, 10, 0, Duration.ofMinutes(30), Duration.ofMinutes(5), 0);
+        submit(gated("a", "txt"));
+        awaitStart("a");
+        submit(file("long", "txt", 60));
+        submit(file("short", "txt", 1));
+
+        gates.get("a").countDown();
+        awaitStart("long");
+        awaitStart("short");
+    }
+}
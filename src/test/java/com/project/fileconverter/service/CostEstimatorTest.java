@@ -0,0 +1,79 @@
+package com.project.fileconverter.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.project.fileconverter.converter.CostUnit;
+
+public class CostEstimatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final CostEstimator estimator = new CostEstimator(0.5);
+
+    private Path zip(String name, String part, String content) throws Exception {
+        Path file = tempDir.resolve(name);
+        try (OutputStream out = Files.newOutputStream(file); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry(part));
+            zip.write(content.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        return file;
+    }
+
+    @Test
+    public void testDocxIsCountedInPages() throws Exception {
+        Path docx = zip("report.docx", "docProps/app.xml",
+                "<Properties><Template>Normal.dotm</Template><Pages>12</Pages></Properties>");
+
+        ConversionCost cost = estimator.estimate(docx, "DocxPdfConverter", CostUnit.PAGES);
+        assertEquals(CostUnit.PAGES, cost.unit());
+        assertEquals(12, cost.units());
+        assertEquals(3.0, cost.seconds(), 1e-9);
+    }
+
+    @Test
+    public void testXlsxIsCountedInRows() throws Exception {
+        Path xlsx = zip("data.xlsx", "xl/worksheets/sheet1.xml",
+                "<worksheet><dimension ref=\"A1:F2500\"/><sheetData/></worksheet>");
+
+        ConversionCost cost = estimator.estimate(xlsx, "XlsxPdfConverter", CostUnit.ROWS);
+        assertEquals(CostUnit.ROWS, cost.unit());
+        assertEquals(2500, cost.units());
+    }
+
+    @Test
+    public void testOtherFilesAreCountedBySize() throws Exception {
+        Path legacy = Files.write(tempDir.resolve("old.doc"), new byte[10 * 1024]);
+
+        ConversionCost cost = estimator.estimate(legacy, "DocxPdfConverter", CostUnit.PAGES);
+        assertEquals(CostUnit.KIB, cost.unit());
+        assertEquals(10, cost.units());
+    }
+
+    @Test
+    public void testObservedRunTimesMoveThePrediction() throws Exception {
+        Path text = Files.write(tempDir.resolve("big.log"), new byte[100 * 1024]);
+        ConversionCost before = estimator.estimate(text, "TextPdfConverter", CostUnit.KIB);
+
+        assertEquals(0.2, before.seconds(), 1e-9);
+
+        // the first observation replaces the default rate
+        estimator.record(before, 1_000_000_000L);
+        assertEquals(1.0, estimator.estimate(text, "TextPdfConverter", CostUnit.KIB).seconds(), 1e-9);
+
+        // later ones move it by the smoothing factor
+        estimator.record(before, 500_000_000L);
+        assertEquals(0.75, estimator.estimate(text, "TextPdfConverter", CostUnit.KIB).seconds(), 1e-9);
+    }
+}
@@ -0,0 +1,64 @@
+package com.project.fileconverter.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class IngestInputStreamTest {
+
+    private static byte[] content(int length) {
+        byte[] data = new byte[length];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+
+    @Test
+    public void testOneReadHashesCountsAndKeepsPrefix() throws Exception {
+        byte[] data = content(3 * IngestInputStream.SNIFF_LENGTH + 17);
+
+        try (IngestInputStream in = new IngestInputStream(new ByteArrayInputStream(data))) {
+            in.transferTo(OutputStream.nullOutputStream());
+
+            assertEquals(sha256(data), in.getHash());
+            assertEquals(data.length, in.getSize());
+            assertArrayEquals(Arrays.copyOf(data, IngestInputStream.SNIFF_LENGTH), in.getPrefix());
+        }
+    }
+
+    @Test
+    public void testSmallUploadIsKeptWhole() throws Exception {
+        byte[] data = content(100);
+
+        try (IngestInputStream in = new IngestInputStream(new ByteArrayInputStream(data))) {
+            assertEquals(data[0] & 0xff, in.read());
+            in.transferTo(OutputStream.nullOutputStream());
+
+            assertArrayEquals(data, in.getPrefix());
+            assertEquals(sha256(data), in.getHash());
+        }
+    }
+
+    @Test
+    public void testSkippedBytesAreHashed() throws Exception {
+        byte[] data = content(50_000);
+
+        try (IngestInputStream in = new IngestInputStream(new ByteArrayInputStream(data))) {
+            assertEquals(20_000, in.skip(20_000));
+            in.transferTo(OutputStream.nullOutputStream());
+
+            assertEquals(data.length, in.getSize());
+            assertEquals(sha256(data), in.getHash());
+        }
+    }
+}
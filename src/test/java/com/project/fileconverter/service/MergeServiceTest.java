@@ -0,0 +1,137 @@
+package com.project.fileconverter.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import com.project.fileconverter.converter.PdfOutputFactory;
+import com.project.fileconverter.model.ConversionOptions;
+import com.project.fileconverter.model.JobStatus;
+
+@SpringBootTest
+public class MergeServiceTest {
+
+    @Autowired
+    private MergeService mergeService;
+
+    @Autowired
+    private ConverterService converterService;
+
+    @Autowired
+    private ConversionJobService jobService;
+
+    @Autowired
+    private PdfOutputFactory outputs;
+
+    @Value("${file.storage.location}")
+    private String storageLocation;
+
+    private static MockMultipartFile text(String name, String content) {
+        return new MockMultipartFile("files", name, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testPartsAreMergedInOrder() throws Exception {
+        StringBuilder longPart = new StringBuilder("Part two\n");
+        for (int i = 1; i <= 120; i++) {
+            longPart.append("Line ").append(i).append('\n');
+        }
+
+        ConversionJob merge = mergeService.submit(List.of(
+                text("one.txt", "Part one\n"),
+                text("two.txt", longPart.toString()),
+                text("three.txt", "Part three\n")), ConversionOptions.defaults());
+
+        assertSame(merge, jobService.getJob(merge.getId()));
+        assertEquals(JobStatus.COMPLETED, merge.whenFinished().get(60, TimeUnit.SECONDS).getStatus());
+        try (PDDocument pdf = PDDocument.load(converterService.getPdfPath(merge.getId()).toFile())) {
+            assertTrue(pdf.getNumberOfPages() >= 4, "Every page of every part should be appended");
+            String extracted = new PDFTextStripper().getText(pdf);
+            int one = extracted.indexOf("Part one");
+            int two = extracted.indexOf("Part two");
+            int three = extracted.indexOf("Part three");
+            assertTrue(one >= 0 && one < two && two < three, "Parts should appear in the order sent");
+        }
+    }
+
+    @Test
+    public void testFailedPartDiscardsEveryPart() throws Exception {
+        Path files = Paths.get(storageLocation, "files");
+        Set<Path> before = storedFiles(files);
+        // a ZIP that is not a Word document: accepted by extension, fails to convert
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(zip)) {
+            out.putNextEntry(new ZipEntry("word/document.xml"));
+            out.write("not a document".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        MockMultipartFile broken = new MockMultipartFile("files", "broken.docx",
+                "application/vnd.openxmlformats-officedocument.wordprocessingml.document", zip.toByteArray());
+
+        ConversionJob merge = mergeService.submit(List.of(
+                text("one.txt", "Part one\n"),
+                broken,
+                text("three.txt", "Part three\n")), ConversionOptions.defaults());
+
+        assertEquals(JobStatus.FAILED, merge.whenFinished().get(60, TimeUnit.SECONDS).getStatus());
+        assertTrue(merge.getError().contains("broken.docx"), merge.getError());
+        // parts still converting are discarded once they stop
+        Set<Path> left = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            left = storedFiles(files);
+            left.removeAll(before);
+            if (left.isEmpty()) break;
+            Thread.sleep(100);
+        }
+        assertEquals(Set.of(), left, "No part of a failed merge should stay in storage");
+    }
+
+    private static Set<Path> storedFiles(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return new HashSet<>();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            return paths.filter(Files::isRegularFile).collect(Collectors.toCollection(HashSet::new));
+        }
+    }
+
+    @Test
+    public void testUnsupportedPartRejectsWholeMerge() {
+        MockMultipartFile unsupported = new MockMultipartFile("files", "blob.bin", "application/octet-stream",
+                new byte[]{0, 1, 2, 3});
+
+        assertThrows(IOException.class, () -> mergeService.submit(
+                List.of(text("one.txt", "Part one\n"), unsupported), ConversionOptions.defaults()));
+    }
+
+    @Test
+    public void testTooManyPartsAreRejected() {
+        MergeService limited = new MergeService(converterService, jobService, outputs, 1, DataSize.ofMegabytes(1), 1);
+        try {
+            assertThrows(BatchLimitExceededException.class, () -> limited.submit(
+                    List.of(text("one.txt", "1"), text("two.txt", "2")), ConversionOptions.defaults()));
+        } finally {
+            limited.shutdown();
+        }
+    }
+}
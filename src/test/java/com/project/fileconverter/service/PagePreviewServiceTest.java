@@ -0,0 +1,91 @@
+package com.project.fileconverter.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+public class PagePreviewServiceTest {
+
+    private static final String ID = "abcdef";
+
+    @TempDir
+    Path storageDir;
+
+    private PagePreviewService previews;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Path pdf = storageDir.resolve("doc.pdf");
+        try (PDDocument doc = new PDDocument()) {
+            doc.addPage(new PDPage(PDRectangle.A6));
+            doc.addPage(new PDPage(PDRectangle.A6));
+            doc.save(pdf.toFile());
+        }
+        ConverterService converterService = mock(ConverterService.class);
+        when(converterService.getPdfPath(ID)).thenReturn(pdf);
+        previews = new PagePreviewService(converterService, storageDir.toString(), DataSize.ofMegabytes(1), 300,
+                25_000_000, 1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        previews.shutdown();
+    }
+
+    private static byte[] read(Resource resource) throws Exception {
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private long cachedImages() throws Exception {
+        try (Stream<Path> files = Files.walk(storageDir.resolve("previews"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    public void testEvictedImageIsRenderedAgainWhenRead() throws Exception {
+        Resource image = previews.renderPage(ID, 1, 36, "png");
+        byte[] first = read(image);
+        assertEquals(first.length, image.contentLength());
+
+        // evicted between the lookup and the response reading it
+        Files.delete(image.getFile().toPath());
+
+        assertArrayEquals(first, read(image));
+    }
+
+    @Test
+    public void testMissingPageHasNoImage() throws Exception {
+        assertNull(previews.renderPage(ID, 3, 36, "png"));
+        assertNull(previews.renderPage("unknown", 1, 36, "png"));
+    }
+
+    @Test
+    public void testPurgeRemovesEveryImageOfAFile() throws Exception {
+        previews.renderPage(ID, 1, 36, "png");
+        previews.renderPage(ID, 2, 72, "jpeg");
+        assertEquals(2, cachedImages());
+
+        previews.purge("other");
+        assertEquals(2, cachedImages());
+
+        previews.purge(ID);
+        assertEquals(0, cachedImages());
+    }
+}
@@ -0,0 +1,119 @@
+package com.project.fileconverter.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class StorageIndexTest {
+
+    @TempDir
+    Path storageDir;
+
+    private StorageIndex open(long retentionDays) throws Exception {
+        return new StorageIndex(storageDir.toString(), retentionDays);
+    }
+
+    @Test
+    public void testEntriesSurviveReplay() throws Exception {
+        StorageIndex index = open(1);
+        Path dir = index.directoryFor("abcdef");
+        index.put("abcdef", dir.resolve("report.docx"), dir.resolve("report.pdf"), 42);
+        index.put("abcdef", dir.resolve("report.docx"), dir.resolve("report.pdf"), 43);
+        index.put("ghijkl", dir.resolve("other.txt"), dir.resolve("other.pdf"), 7);
+        index.remove("ghijkl");
+        Instant expiresAt = index.get("abcdef").expiresAt();
+
+        assertEquals(43, index.totalSize());
+        index.close();
+
+        StorageIndex replayed = open(1);
+        assertEquals(1, replayed.size());
+        assertEquals(43, replayed.totalSize(), "Replay should rebuild the total size");
+        assertEquals(43, replayed.get("abcdef").size());
+        assertEquals(expiresAt, replayed.get("abcdef").expiresAt(), "Updates should keep the original expiry");
+        assertEquals(dir.resolve("report.pdf"), replayed.getPdfPath("abcdef"));
+        assertNull(replayed.get("ghijkl"));
+        replayed.close();
+    }
+
+    @Test
+    public void testFilesAreShardedById() throws Exception {
+        StorageIndex index = open(1);
+        assertEquals(storageDir.resolve("files/ab/cd"), index.directoryFor("abcdef"));
+        assertEquals(storageDir.resolve("files/_/_"), index.directoryFor("x"));
+        assertTrue(Files.isDirectory(storageDir.resolve("files/ab/cd")));
+        index.close();
+    }
+
+    @Test
+    public void testTornRecordIsSkipped() throws Exception {
+        StorageIndex index = open(1);
+        Path dir = index.directoryFor("abcdef");
+        index.put("abcdef", dir.resolve("a.txt"), dir.resolve("a.pdf"), 1);
+        index.close();
+        // a crash in the middle of the next append
+        Files.writeString(storageDir.resolve("index.log"), "P\tghijkl\tfiles/gh", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        StorageIndex replayed = open(1);
+        assertEquals(1, replayed.size());
+        assertNotNull(replayed.get("abcdef"));
+        replayed.close();
+    }
+
+    @Test
+    public void testRemovedEntriesReleaseTheirBlobs() throws Exception {
+        StorageIndex index = open(1);
+        Path dir = index.directoryFor("abcdef");
+        Path blob = storageDir.resolve("cas/12/1234.src");
+        index.put("abcdef", dir.resolve("a.txt"), dir.resolve("a.pdf"), 1);
+        index.addBlob("abcdef", blob);
+        index.addBlob("abcdef", blob);
+        index.close();
+
+        StorageIndex replayed = open(1);
+        assertEquals(List.of("cas/12/1234.src"), replayed.get("abcdef").blobs());
+        assertTrue(replayed.takeReleasedBlobs().isEmpty());
+        replayed.remove("abcdef");
+        assertEquals(List.of(blob), replayed.takeReleasedBlobs());
+        assertTrue(replayed.takeReleasedBlobs().isEmpty(), "Released blobs should be handed out once");
+        replayed.close();
+    }
+
+    @Test
+    public void testExpiredEntriesComeOldestFirst() throws Exception {
+        StorageIndex index = open(0);
+        Path dir = index.directoryFor("abcdef");
+        index.put("first", dir.resolve("1.txt"), dir.resolve("1.pdf"), 1);
+        Thread.sleep(5);
+        index.put("second", dir.resolve("2.txt"), dir.resolve("2.pdf"), 1);
+
+        List<StorageIndex.Entry> expired = index.expired(Instant.now().plusSeconds(1));
+        assertEquals(List.of("first", "second"), expired.stream().map(StorageIndex.Entry::id).toList());
+        assertTrue(index.expired(index.get("first").expiresAt()).isEmpty());
+        index.close();
+    }
+
+    @Test
+    public void testStaleLogIsCompactedOnStartup() throws Exception {
+        StorageIndex index = open(1);
+        Path dir = index.directoryFor("abcdef");
+        for (int i = 0; i <= 10_000; i++) {
+            index.put("abcdef", dir.resolve("a.txt"), dir.resolve("a.pdf"), i);
+        }
+        index.close();
+
+        StorageIndex compacted = open(1);
+        assertEquals(1, Files.readAllLines(storageDir.resolve("index.log")).size());
+        assertEquals(10_000, compacted.get("abcdef").size());
+        compacted.close();
+    }
+}
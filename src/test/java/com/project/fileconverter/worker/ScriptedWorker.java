@@ -0,0 +1,56 @@
+package com.project.fileconverter.worker;
+
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Stand-in for {@link WorkerMain} that speaks {@link WorkerProtocol} without loading any
+ * converters. The converter name in each request picks the behaviour:
+ * <ul>
+ * <li>{@code Echo} writes this process's pid and the slide render mode to the destination</li>
+ * <li>{@code Fail} answers with an error</li>
+ * <li>{@code Hang} never answers</li>
+ * <li>{@code Crash} exits without answering</li>
+ * </ul>
+ */
+public final class ScriptedWorker {
+
+    private ScriptedWorker() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        PrintStream replies = new PrintStream(new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8);
+        replies.println(WorkerProtocol.READY);
+
+        BufferedReader requests = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = requests.readLine()) != null) {
+            String[] request = line.split("\t", -1);
+            switch (request[1]) {
+                case "Echo":
+                    Files.writeString(Paths.get(request[3]), ProcessHandle.current().pid() + " "
+                            + WorkerProtocol.options(request).getSlideRenderMode());
+                    replies.println(WorkerProtocol.OK);
+                    break;
+                case "Fail":
+                    replies.println(WorkerProtocol.error(new IOException("Broken\tdocument")));
+                    break;
+                case "Hang":
+                    Thread.sleep(Long.MAX_VALUE);
+                    break;
+                case "Crash":
+                    System.exit(3);
+                    break;
+                default:
+                    replies.println(WorkerProtocol.ERROR + "\tUnknown converter " + request[1]);
+            }
+        }
+    }
+}
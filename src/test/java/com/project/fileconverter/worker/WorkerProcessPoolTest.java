@@ -0,0 +1,157 @@
+package com.project.fileconverter.worker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.project.fileconverter.converter.ConverterCapabilities;
+import com.project.fileconverter.converter.PdfConverter;
+import com.project.fileconverter.model.ConversionOptions;
+import com.project.fileconverter.model.SlideRenderMode;
+
+/**
+ * Runs the pool against {@link ScriptedWorker} processes; the converters below only
+ * name the behaviour the worker should script.
+ */
+public class WorkerProcessPoolTest {
+
+    private abstract static class Scripted implements PdfConverter {
+        @Override
+        public void convert(File source, File dest) {
+            throw new UnsupportedOperationException("Runs in the worker");
+        }
+
+        @Override
+        public ConverterCapabilities capabilities() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class Echo extends Scripted {
+    }
+
+    private static class Fail extends Scripted {
+    }
+
+    private static class Hang extends Scripted {
+    }
+
+    private static class Crash extends Scripted {
+    }
+
+    @TempDir
+    Path tempDir;
+
+    private File source;
+    private WorkerProcessPool pool;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        source = Files.writeString(tempDir.resolve("input.txt"), "input").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    private WorkerProcessPool pool(int jobsPerWorker) throws IOException {
+        List<String> command = List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                ScriptedWorker.class.getName());
+        pool = new WorkerProcessPool(true, 1, command, jobsPerWorker, Duration.ofSeconds(30), Duration.ofSeconds(30));
+        return pool;
+    }
+
+    /**
+     * @return the pid of the worker that ran the conversion
+     */
+    private String echo(ConversionOptions options) throws IOException {
+        File dest = tempDir.resolve("output-" + System.nanoTime() + ".pdf").toFile();
+        pool.convert(new Echo(), source, dest, options, null);
+        String[] reply = Files.readString(dest.toPath()).split(" ");
+        assertEquals(String.valueOf(options.getSlideRenderMode()), reply[1]);
+        return reply[0];
+    }
+
+    private String echo() throws IOException {
+        return echo(ConversionOptions.defaults());
+    }
+
+    private void convert(PdfConverter converter, Instant deadline) throws IOException {
+        pool.convert(converter, source, tempDir.resolve("output.pdf").toFile(), ConversionOptions.defaults(), deadline);
+    }
+
+    @Test
+    public void testOptionsReachTheWorker() throws Exception {
+        pool(10);
+
+        echo(ConversionOptions.builder().slideRenderMode(SlideRenderMode.VECTOR).build());
+        echo();
+    }
+
+    @Test
+    public void testConversionErrorKeepsTheWorker() throws Exception {
+        pool(10);
+        String pid = echo();
+
+        IOException e = assertThrows(IOException.class, () -> convert(new Fail(), null));
+
+        assertEquals("Broken document", e.getMessage());
+        assertEquals(pid, echo());
+    }
+
+    @Test
+    public void testWorkerIsKilledAtDeadline() throws Exception {
+        pool(10);
+        String pid = echo();
+
+        long start = System.nanoTime();
+        IOException e = assertThrows(IOException.class, () -> convert(new Hang(), Instant.now().plusMillis(500)));
+
+        assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(10)) < 0,
+                "The hung conversion should be abandoned at its deadline");
+        // the hung worker must be gone; a TimeoutException here means it was left running
+        ProcessHandle hung = ProcessHandle.of(Long.parseLong(pid)).orElse(null);
+        if (hung != null) hung.onExit().get(5, TimeUnit.SECONDS);
+        assertNotEquals(pid, echo(), "A fresh worker should replace the killed one");
+    }
+
+    @Test
+    public void testWorkerIsRecycledAfterJobQuota() throws Exception {
+        pool(2);
+
+        String first = echo();
+        assertEquals(first, echo());
+        String second = echo();
+
+        assertNotEquals(first, second, "The worker should be replaced after jobs-per-worker conversions");
+        assertEquals(second, echo());
+    }
+
+    @Test
+    public void testCrashedWorkerIsReplaced() throws Exception {
+        pool(10);
+        String pid = echo();
+
+        IOException e = assertThrows(IOException.class, () -> convert(new Crash(), null));
+
+        assertTrue(e.getMessage().contains("exited"), e.getMessage());
+        assertNotEquals(pid, echo());
+    }
+}
@@ -0,0 +1,58 @@
+package com.project.fileconverter.worker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+
+import com.project.fileconverter.model.ConversionOptions;
+import com.project.fileconverter.model.SlideRenderMode;
+
+public class WorkerProtocolTest {
+
+    private static final File SOURCE = new File("/data/files/ab/cd/deck.pptx");
+    private static final File DEST = new File("/data/files/ab/cd/deck.pdf");
+
+    private static String[] roundTrip(ConversionOptions options) {
+        return WorkerProtocol.request("PptxPdfConverter", SOURCE, DEST, options).split("\t", -1);
+    }
+
+    @Test
+    public void testRequestRoundTrip() {
+        ConversionOptions options = ConversionOptions.builder().slideRenderMode(SlideRenderMode.VECTOR).build();
+
+        String[] request = roundTrip(options);
+
+        assertEquals(5, request.length);
+        assertEquals(WorkerProtocol.CONVERT, request[0]);
+        assertEquals("PptxPdfConverter", request[1]);
+        assertEquals(SOURCE.getAbsolutePath(), request[2]);
+        assertEquals(DEST.getAbsolutePath(), request[3]);
+        assertEquals(options, WorkerProtocol.options(request));
+    }
+
+    @Test
+    public void testUnsetOptionsRoundTrip() {
+        String[] request = roundTrip(ConversionOptions.defaults());
+
+        assertEquals("-", request[4]);
+        assertEquals(ConversionOptions.defaults(), WorkerProtocol.options(request));
+    }
+
+    @Test
+    public void testUnknownOptionIsRejected() {
+        String[] request = {WorkerProtocol.CONVERT, "PptxPdfConverter", "a", "b", "pageSize=A4"};
+
+        assertThrows(IllegalArgumentException.class, () -> WorkerProtocol.options(request));
+    }
+
+    @Test
+    public void testErrorStaysOnOneLine() {
+        String reply = WorkerProtocol.error(new IllegalStateException("line one\r\n\tline two"));
+
+        assertEquals(WorkerProtocol.ERROR + "\tline one line two", reply);
+        assertEquals(WorkerProtocol.ERROR + "\t" + NullPointerException.class.getName(),
+                WorkerProtocol.error(new NullPointerException()));
+    }
+}